@@ -0,0 +1,82 @@
+#!/bin/sh
+# Extract the AOT-processed fat jar and train an AppCDS archive on a chain workload
+#
+# Usage: scripts/cds-train.sh [jar] [destination]
+#   jar          Fat jar built with: mvn -Paot -DskipTests package
+#                (default: target/microservice-demo-0.0.1-SNAPSHOT.jar)
+#   destination  Directory for the extracted application and app.jsa (default: target/cds)
+#
+# Run the result with:
+#   java -XX:SharedArchiveFile=<destination>/app.jsa -Dspring.aot.enabled=true -jar <destination>/<jar name>
+#
+# The archive is only valid for the JDK that trained it and the extracted paths, so the
+# Docker image (Dockerfile.cds) trains inside its runtime stage.
+# POSIX sh with curl or wget, so it runs in the Alpine runtime image as well; only options
+# BusyBox wget supports are used there, which cannot send PUT requests.
+set -eu
+
+JAR=${1:-target/microservice-demo-0.0.1-SNAPSHOT.jar}
+DESTINATION=${2:-target/cds}
+PORT=${TRAINING_PORT:-18080}
+REQUESTS=${TRAINING_REQUESTS:-500}
+
+fetch() {
+    if command -v curl >/dev/null 2>&1; then
+        curl -sf -o /dev/null "$@"
+    else
+        wget -q -O /dev/null "$@"
+    fi
+}
+
+post_json() {
+    if command -v curl >/dev/null 2>&1; then
+        curl -sf -o /dev/null -H "Content-Type: application/json" -d "$2" "$1"
+    else
+        wget -q -O /dev/null --header="Content-Type: application/json" --post-data="$2" "$1"
+    fi
+}
+
+rm -rf "$DESTINATION"
+java -Djarmode=tools -jar "$JAR" extract --destination "$DESTINATION"
+APP_JAR="$DESTINATION/$(basename "$JAR")"
+BASE_URL="http://localhost:$PORT"
+
+# Training run. Service B and C point at this instance over HTTP (no in-process short
+# circuit), so the client, transport and serialization classes of the hops are archived too.
+java -XX:ArchiveClassesAtExit="$DESTINATION/app.jsa" \
+    -Dspring.aot.enabled=true \
+    -Dserver.port="$PORT" \
+    -Dservices.service-b.url="$BASE_URL" \
+    -Dservices.service-c.url="$BASE_URL" \
+    -Dservices.short-circuit.enabled=false \
+    -jar "$APP_JAR" > "$DESTINATION/training.log" 2>&1 &
+PID=$!
+
+i=0
+until fetch "$BASE_URL/actuator/health"; do
+    i=$((i + 1))
+    if [ "$i" -ge 600 ] || ! kill -0 "$PID" 2>/dev/null; then
+        echo "Training instance did not become healthy, see $DESTINATION/training.log" >&2
+        kill "$PID" 2>/dev/null || true
+        exit 1
+    fi
+    sleep 0.1
+done
+
+i=0
+while [ "$i" -lt "$REQUESTS" ]; do
+    fetch "$BASE_URL/api/message?user=train$i"
+    i=$((i + 1))
+done
+post_json "$BASE_URL/api/messages/batch" '{"users": ["ann", "bob", "cid"]}'
+fetch "$BASE_URL/actuator/health"
+
+# A clean shutdown writes the archive
+kill -TERM "$PID"
+wait "$PID" || true
+
+if [ ! -s "$DESTINATION/app.jsa" ]; then
+    echo "No CDS archive written, see $DESTINATION/training.log" >&2
+    exit 1
+fi
+echo "Trained $DESTINATION/app.jsa on $REQUESTS chain requests"
@@ -0,0 +1,110 @@
+#!/usr/bin/env bash
+# Time to first successful GET /api/message, and resident memory at that point
+#
+# Usage: scripts/measure-startup.sh [-n runs] [-i image]...
+#
+# Without -i, compares the local builds that exist:
+#   jar      target/microservice-demo-0.0.1-SNAPSHOT.jar run with plain java -jar (the current image)
+#   aot-cds  target/cds from scripts/cds-train.sh, run with Spring AOT and the trained CDS archive
+#   native   target/microservice-demo from mvn -Pnative native:compile
+# With -i, compares Docker images instead, e.g. built from Dockerfile, Dockerfile.cds and
+# Dockerfile.native; memory is the container usage reported by docker stats.
+#
+# Each variant is started runs times (default 5) on a fresh port with Service B and C in
+# the same process; the median, min and max of each measurement are reported.
+set -euo pipefail
+
+RUNS=5
+IMAGES=()
+while getopts "n:i:" option; do
+    case $option in
+        n) RUNS=$OPTARG ;;
+        i) IMAGES+=("$OPTARG") ;;
+        *) echo "Usage: $0 [-n runs] [-i image]..." >&2; exit 2 ;;
+    esac
+done
+
+JAR=target/microservice-demo-0.0.1-SNAPSHOT.jar
+CDS_DIR=target/cds
+NATIVE=target/microservice-demo
+PORT=${MEASURE_PORT:-18180}
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Poll until /api/message answers 200, printing the elapsed milliseconds since start_ms
+wait_for_message() {
+    local start_ms=$1 deadline=$(( $1 + 120000 ))
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/message?user=startup"; do
+        if [ "$(now_ms)" -gt "$deadline" ]; then
+            echo "timeout" && return 1
+        fi
+        sleep 0.01
+    done
+    echo $(( $(now_ms) - start_ms ))
+}
+
+# Run one local variant once: prints "<ms> <rss MB>"
+run_local() {
+    local start_ms pid elapsed rss
+    start_ms=$(now_ms)
+    "$@" --server.port="$PORT" > /tmp/measure-startup.log 2>&1 &
+    pid=$!
+    elapsed=$(wait_for_message "$start_ms")
+    rss=$(awk '/VmRSS/ { printf "%.0f", $2 / 1024 }' "/proc/$pid/status")
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+# Run one Docker image once: prints "<ms> <memory MB>"
+run_image() {
+    local start_ms container elapsed memory
+    start_ms=$(now_ms)
+    container=$(docker run -d --rm -p "$PORT:8080" "$1")
+    elapsed=$(wait_for_message "$start_ms")
+    memory=$(docker stats --no-stream --format '{{.MemUsage}}' "$container" \
+        | awk '{ value = $1 + 0; if ($1 ~ /GiB/) value *= 1024; if ($1 ~ /KiB/) value /= 1024; printf "%.0f", value }')
+    docker stop "$container" > /dev/null
+    echo "$elapsed $memory"
+}
+
+# Print "<median> <min> <max>" of the numbers on stdin
+summarize() {
+    sort -n | awk '{ v[NR] = $1 } END { printf "%d %d %d\n", v[int((NR + 1) / 2)], v[1], v[NR] }'
+}
+
+measure() {
+    local name=$1 times=() memory=() result
+    shift
+    for _ in $(seq "$RUNS"); do
+        result=$("$@")
+        times+=("${result% *}")
+        memory+=("${result#* }")
+    done
+    read -r t_median t_min t_max < <(printf '%s\n' "${times[@]}" | summarize)
+    read -r m_median m_min m_max < <(printf '%s\n' "${memory[@]}" | summarize)
+    printf "%-28s %10d %8d %8d %10d %8d %8d\n" "$name" "$t_median" "$t_min" "$t_max" "$m_median" "$m_min" "$m_max"
+}
+
+printf "%-28s %10s %8s %8s %10s %8s %8s\n" "variant" "first ms" "min" "max" "RSS MB" "min" "max"
+
+if [ ${#IMAGES[@]} -gt 0 ]; then
+    for image in "${IMAGES[@]}"; do
+        measure "$image" run_image "$image"
+    done
+    exit 0
+fi
+
+SERVICES=(--services.service-b.url="http://localhost:$PORT" --services.service-c.url="http://localhost:$PORT")
+
+if [ -f "$JAR" ]; then
+    measure jar run_local java -jar "$JAR" "${SERVICES[@]}"
+fi
+if [ -f "$CDS_DIR/app.jsa" ]; then
+    measure aot-cds run_local java -XX:SharedArchiveFile="$CDS_DIR/app.jsa" -Dspring.aot.enabled=true \
+        -jar "$CDS_DIR/$(basename "$JAR")" "${SERVICES[@]}"
+fi
+if [ -x "$NATIVE" ]; then
+    measure native run_local "$NATIVE" "${SERVICES[@]}"
+fi
@@ -1,5 +1,6 @@
 package org.example.microservicedemo;
 
+import org.example.microservicedemo.config.JdkHttpClientProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,7 +8,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class MicroserviceDemoApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(MicroserviceDemoApplication.class, args);
+        SpringApplication application = new SpringApplication(MicroserviceDemoApplication.class);
+        application.addListeners(new JdkHttpClientProperties());
+        application.run(args);
     }
 
 }
@@ -0,0 +1,35 @@
+package org.example.microservicedemo.capture;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+/**
+ * One captured request, written as a line of the capture file
+ *
+ * Follows the request_id / title / body layout of requests.jsonl, with the fields a replay
+ * needs to send the request again at its original time.
+ *
+ * @param requestId  Sequential id within the capture
+ * @param title      Method and URI, e.g. "GET /api/message?user=john"
+ * @param body       Request body, null for requests without one
+ * @param timestamp  Arrival time
+ * @param offsetMs   Arrival time relative to the start of the capture
+ * @param method     HTTP method
+ * @param uri        Path and query string, without the context path
+ * @param status     Response status
+ * @param durationMs Time until the response was complete
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CapturedRequest(
+        @JsonProperty("request_id") String requestId,
+        @JsonProperty("title") String title,
+        @JsonProperty("body") String body,
+        @JsonProperty("timestamp") Instant timestamp,
+        @JsonProperty("offset_ms") long offsetMs,
+        @JsonProperty("method") String method,
+        @JsonProperty("uri") String uri,
+        @JsonProperty("status") int status,
+        @JsonProperty("duration_ms") long durationMs) {
+}
@@ -0,0 +1,150 @@
+package org.example.microservicedemo.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes captured requests to an NDJSON file for later replay
+ *
+ * Request threads only offer to a bounded queue; a single writer thread drains it to the
+ * file, so capture never blocks request handling. When the writer falls behind, requests
+ * are dropped and counted in traffic.capture.dropped rather than queued without bound.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrafficCapture {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${services.capture.enabled:false}")
+    private boolean enabled;
+
+    @Value("${services.capture.file:traffic-capture.jsonl}")
+    private Path file;
+
+    @Value("${services.capture.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<CapturedRequest> queue;
+    private BufferedWriter writer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        FunctionCounter.builder("traffic.capture.dropped", dropped, LongAdder::sum)
+                .description("Captured requests dropped because the capture writer fell behind")
+                .register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::drain, "traffic-capture");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        log.info("Capturing traffic to {}", file.toAbsolutePath());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a completed request for writing
+     *
+     * @param arrivalNanos System.nanoTime() when the request arrived
+     */
+    public void record(String method, String uri, String body, long arrivalNanos, int status) {
+        long now = System.nanoTime();
+        long id = nextId.getAndIncrement();
+        CapturedRequest request = new CapturedRequest(
+                "capture-" + id,
+                method + " " + uri,
+                body,
+                Instant.now().minusNanos(now - arrivalNanos),
+                TimeUnit.NANOSECONDS.toMillis(arrivalNanos - startNanos),
+                method,
+                uri,
+                status,
+                TimeUnit.NANOSECONDS.toMillis(now - arrivalNanos));
+
+        if (!queue.offer(request)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<CapturedRequest> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                CapturedRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+
+                for (CapturedRequest request : batch) {
+                    writer.write(objectMapper.writeValueAsString(request));
+                    writer.newLine();
+                }
+                writer.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Failed to write {} captured requests: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        writer.close();
+
+        log.info("Traffic capture to {} stopped, {} requests dropped", file.toAbsolutePath(), dropped.sum());
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.microservicedemo.capture;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.microservicedemo.warmup.WarmupRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Captures GET /api/message and template update (PUT .../message) requests
+ *
+ * Template bodies are kept as the controller reads them, up to MAXIMUM_BODY bytes. A request
+ * is captured once its response is complete, including requests served asynchronously.
+ * Startup warm-up requests are not captured. Does nothing unless services.capture.enabled is set.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+    private static final int MAXIMUM_BODY = 64 * 1024;
+
+    private final TrafficCapture trafficCapture;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!trafficCapture.isEnabled() || request.getHeader(WarmupRunner.WARMUP_HEADER) != null) {
+            return true;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean message = "GET".equals(request.getMethod()) && path.equals("/api/message");
+        boolean templateUpdate = "PUT".equals(request.getMethod()) && path.endsWith("/message");
+        return !message && !templateUpdate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long arrival = System.nanoTime();
+        HttpServletRequest captured = "PUT".equals(request.getMethod())
+                ? new ContentCachingRequestWrapper(request, MAXIMUM_BODY) : request;
+
+        try {
+            chain.doFilter(captured, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        capture(captured, response, arrival);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                capture(captured, response, arrival);
+            }
+        }
+    }
+
+    private void capture(HttpServletRequest request, HttpServletResponse response, long arrival) {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        if (request.getQueryString() != null) {
+            uri = uri + "?" + request.getQueryString();
+        }
+
+        String body = null;
+        if (request instanceof ContentCachingRequestWrapper wrapper && wrapper.getContentAsByteArray().length > 0) {
+            body = new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8);
+        }
+
+        trafficCapture.record(request.getMethod(), uri, body, arrival, response.getStatus());
+    }
+}
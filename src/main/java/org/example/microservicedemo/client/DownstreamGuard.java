@@ -0,0 +1,113 @@
+package org.example.microservicedemo.client;
+
+import org.example.microservicedemo.concurrent.CircuitBreaker;
+import org.example.microservicedemo.concurrent.RequestHedger;
+import org.example.microservicedemo.exception.CircuitBreakerOpenException;
+import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and hedging policy for calls to one downstream service
+ *
+ * Only 5xx responses, I/O errors and timeouts count as breaker failures. A 4xx response
+ * means the downstream answered, so it counts as a success. Local errors such as a call
+ * shed by the executor or abandoned at its deadline say nothing about the downstream's
+ * health; their permit is released without recording an outcome.
+ */
+public class DownstreamGuard {
+
+    private final String serviceName;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestHedger hedger;
+
+    /**
+     * @param circuitBreaker Breaker for the downstream, or null when circuit breaking is disabled
+     */
+    public DownstreamGuard(String serviceName, CircuitBreaker circuitBreaker, RequestHedger hedger) {
+        this.serviceName = serviceName;
+        this.circuitBreaker = circuitBreaker;
+        this.hedger = hedger;
+    }
+
+    /**
+     * Make an asynchronous call through the breaker
+     *
+     * @param attempt Starts one attempt; must be idempotent when hedge is true
+     * @param hedge   Whether a slow call may be duplicated
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> attempt, boolean hedge) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitBreakerOpenException(serviceName));
+        }
+
+        CompletableFuture<T> call;
+        try {
+            call = hedge ? hedger.execute(attempt) : attempt.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        if (circuitBreaker == null) {
+            return call;
+        }
+        return call.whenComplete((result, error) -> record(error));
+    }
+
+    /**
+     * Make a synchronous call through the breaker
+     */
+    public <T> T call(Supplier<T> call) {
+        if (circuitBreaker == null) {
+            return call.get();
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            throw new CircuitBreakerOpenException(serviceName);
+        }
+
+        try {
+            T result = call.get();
+            circuitBreaker.onComplete(false);
+            return result;
+        } catch (RuntimeException e) {
+            record(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Close the breaker and forget hedging latencies, e.g. after synthetic startup traffic
+     */
+    public void reset() {
+        if (circuitBreaker != null) {
+            circuitBreaker.reset();
+        }
+        hedger.reset();
+    }
+
+    private void record(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error == null) {
+            circuitBreaker.onComplete(false);
+        } else if (error instanceof ServiceCommunicationException) {
+            circuitBreaker.onComplete(isDownstreamFailure(error.getCause()));
+        } else {
+            circuitBreaker.release();
+        }
+    }
+
+    /**
+     * @param cause Cause of a failed exchange
+     * @return Whether the downstream failed to answer, rather than answering with an error
+     *         the caller has to handle
+     */
+    private static boolean isDownstreamFailure(Throwable cause) {
+        return cause instanceof HttpServerErrorException || cause instanceof ResourceAccessException;
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.microservicedemo.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.URI;
+import java.net.UnknownHostException;
+
+/**
+ * Detects downstream URLs that point back at this instance
+ *
+ * Once the web server is up, the Service B and C URLs are compared with its port and
+ * context path; a host that resolves to a loopback, wildcard or local interface address
+ * counts as this instance. Calls to such a downstream are short-circuited into an
+ * in-process method call and counted as chain.shortcircuit.calls{downstream}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DownstreamLocality implements ApplicationListener<WebServerInitializedEvent> {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${services.service-b.url:http://localhost:8081}")
+    private String serviceBUrl;
+
+    @Value("${services.service-c.url:http://localhost:8082}")
+    private String serviceCUrl;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    @Value("${services.short-circuit.enabled:true}")
+    private boolean enabled;
+
+    // Written once when the web server starts; until then every downstream is remote
+    private volatile boolean serviceBLocal;
+    private volatile boolean serviceCLocal;
+
+    private Counter serviceBCounter;
+    private Counter serviceCCounter;
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        // Ignore a separate management server
+        if (event.getApplicationContext().getServerNamespace() != null) {
+            return;
+        }
+
+        int port = event.getWebServer().getPort();
+        serviceBCounter = counter("service-b");
+        serviceCCounter = counter("service-c");
+        serviceBLocal = enabled && pointsAtThisInstance(serviceBUrl, port);
+        serviceCLocal = enabled && pointsAtThisInstance(serviceCUrl, port);
+
+        log.info("Downstream locality on port {}: service-b {} ({}), service-c {} ({})", port,
+                serviceBLocal ? "in-process" : "remote", serviceBUrl,
+                serviceCLocal ? "in-process" : "remote", serviceCUrl);
+    }
+
+    private Counter counter(String downstream) {
+        return Counter.builder("chain.shortcircuit.calls")
+                .description("Downstream calls made in-process because the URL points at this instance")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true, counting the call, if Service B should be called in-process
+     */
+    public boolean shortCircuitServiceB() {
+        if (serviceBLocal) {
+            serviceBCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true, counting the call, if Service C should be called in-process
+     */
+    public boolean shortCircuitServiceC() {
+        if (serviceCLocal) {
+            serviceCCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    boolean pointsAtThisInstance(String url, int port) {
+        try {
+            URI uri = URI.create(url);
+            int urlPort = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            if (urlPort != port || uri.getHost() == null || !normalize(uri.getPath()).equals(normalize(contextPath))) {
+                return false;
+            }
+
+            for (InetAddress address : InetAddress.getAllByName(uri.getHost())) {
+                if (address.isLoopbackAddress() || address.isAnyLocalAddress()
+                        || NetworkInterface.getByInetAddress(address) != null) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IllegalArgumentException | UnknownHostException | SocketException e) {
+            log.warn("Could not resolve downstream URL {}, treating it as remote: {}", url, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String normalize(String path) {
+        if (path == null || path.equals("/")) {
+            return "";
+        }
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.microservicedemo.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.concurrent.SheddableTask;
+import org.example.microservicedemo.config.WireFormat;
+import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.example.microservicedemo.model.PipelineRequest;
+import org.example.microservicedemo.model.PipelineResponse;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Client for running remote pipeline segments on other instances
+ *
+ * Holds one RestClient per remote base URL, built by RestClientConfig with the same
+ * transport and pool settings as the Service B and C clients.
+ */
+@Slf4j
+public class PipelineClient {
+
+    private final Map<String, RestClient> restClients;
+    private final Executor asyncRestClientExecutor;
+    private final WireFormat wireFormat;
+
+    public PipelineClient(Map<String, RestClient> restClients, Executor asyncRestClientExecutor,
+                          WireFormat wireFormat) {
+        this.restClients = Map.copyOf(restClients);
+        this.asyncRestClientExecutor = asyncRestClientExecutor;
+        this.wireFormat = wireFormat;
+    }
+
+    /**
+     * Run stages on a remote instance asynchronously
+     *
+     * @param url     Base URL of the instance
+     * @param request Stages to run and the message so far
+     * @return CompletableFuture with the message after the stages and their chain links
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public CompletableFuture<PipelineResponse> executeAsync(String url, PipelineRequest request) {
+        return SheddableTask.supplyAsync(() -> execute(url, request), asyncRestClientExecutor);
+    }
+
+    /**
+     * Run stages on a remote instance synchronously
+     *
+     * @param url     Base URL of the instance
+     * @param request Stages to run and the message so far
+     * @return Message after the stages and their chain links
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public PipelineResponse execute(String url, PipelineRequest request) {
+        log.debug("Calling pipeline stages {} at {}", request.getStages(), url);
+
+        RestClient restClient = restClients.get(url);
+        if (restClient == null) {
+            throw new IllegalStateException("No RestClient for pipeline URL " + url);
+        }
+
+        try {
+            PipelineResponse response = restClient.post()
+                    .uri("/internal/pipeline/execute")
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
+                    .header("X-Internal-Request", "true")
+                    .body(request)
+                    .retrieve()
+                    .body(PipelineResponse.class);
+
+            if (response == null || response.getChain() == null) {
+                throw new ServiceCommunicationException("Pipeline stages at " + url + " returned null response");
+            }
+            return response;
+
+        } catch (RestClientException e) {
+            log.error("Failed to run pipeline stages at {}: {}", url, e.getMessage(), e);
+            throw new ServiceCommunicationException(
+                    "Failed to run pipeline stages at " + url + ": " + e.getMessage(), e);
+        }
+    }
+}
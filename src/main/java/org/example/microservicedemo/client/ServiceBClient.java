@@ -2,16 +2,23 @@ package org.example.microservicedemo.client;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.concurrent.SheddableTask;
+import org.example.microservicedemo.config.WireFormat;
 import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.example.microservicedemo.model.BatchRequest;
+import org.example.microservicedemo.model.BatchResponse;
+import org.example.microservicedemo.model.ChainDeltaRequest;
+import org.example.microservicedemo.model.ChainDeltaResponse;
 import org.example.microservicedemo.model.ServiceBRequest;
 import org.example.microservicedemo.model.ServiceBResponse;
-import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Client for communicating with Service B using RestClient with async support
@@ -22,43 +29,57 @@ import java.util.concurrent.CompletableFuture;
 public class ServiceBClient {
 
     private final RestClient serviceBRestClient;
+    private final Executor asyncRestClientExecutor;
+    private final DownstreamGuard serviceBGuard;
+
+    @Value("${services.rest-client.wire-format:json}")
+    private WireFormat wireFormat;
 
     /**
      * Call Service B to process message asynchronously
      *
+     * The exchange is submitted once, straight to asyncRestClientExecutor, so it follows the
+     * configured execution mode (platform pool or one virtual thread per call). In platform
+     * mode a call that waits too long in the queue fails with a RejectedExecutionException.
+     * When hedging is enabled a slow call is duplicated once, and while Service B's circuit
+     * breaker is open calls fail fast with CircuitBreakerOpenException.
+     *
      * @param request Request containing current message
      * @return CompletableFuture with Response from Service B with updated message and chain
      * @throws ServiceCommunicationException if communication fails
      */
-    @Async("asyncRestClientExecutor")
     public CompletableFuture<ServiceBResponse> processMessageAsync(ServiceBRequest request) {
-        log.info("Calling Service B asynchronously with message length: {} on thread: {}",
+        return serviceBGuard.callAsync(
+                () -> SheddableTask.supplyAsync(() -> exchangeAsync(request), asyncRestClientExecutor), true);
+    }
+
+    private ServiceBResponse exchangeAsync(ServiceBRequest request) {
+        log.debug("Calling Service B asynchronously with message length: {} on thread: {}",
                 request.getCurrentMessage().length(), Thread.currentThread().getName());
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                ServiceBResponse response = serviceBRestClient.post()
-                        .uri("/internal/service-b/append")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .header("X-Internal-Request", "true")
-                        .body(request)
-                        .retrieve()
-                        .body(ServiceBResponse.class);
-
-                if (response == null) {
-                    throw new ServiceCommunicationException("Service B returned null response");
-                }
-
-                log.info("Successfully received async response from Service B on thread: {}",
-                        Thread.currentThread().getName());
-                return response;
-
-            } catch (RestClientException e) {
-                log.error("Failed to communicate with Service B asynchronously: {}", e.getMessage(), e);
-                throw new ServiceCommunicationException(
-                        "Failed to communicate with Service B: " + e.getMessage(), e);
+        try {
+            ServiceBResponse response = serviceBRestClient.post()
+                    .uri("/internal/service-b/append")
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
+                    .header("X-Internal-Request", "true")
+                    .body(request)
+                    .retrieve()
+                    .body(ServiceBResponse.class);
+
+            if (response == null) {
+                throw new ServiceCommunicationException("Service B returned null response");
             }
-        });
+
+            log.debug("Successfully received async response from Service B on thread: {}",
+                    Thread.currentThread().getName());
+            return response;
+
+        } catch (RestClientException e) {
+            log.error("Failed to communicate with Service B asynchronously: {}", e.getMessage(), e);
+            throw new ServiceCommunicationException(
+                    "Failed to communicate with Service B: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -69,12 +90,17 @@ public class ServiceBClient {
      * @throws ServiceCommunicationException if communication fails
      */
     public ServiceBResponse processMessage(ServiceBRequest request) {
-        log.info("Calling Service B synchronously with message length: {}", request.getCurrentMessage().length());
+        log.debug("Calling Service B synchronously with message length: {}", request.getCurrentMessage().length());
 
+        return serviceBGuard.call(() -> exchange(request));
+    }
+
+    private ServiceBResponse exchange(ServiceBRequest request) {
         try {
             ServiceBResponse response = serviceBRestClient.post()
                     .uri("/internal/service-b/append")
-                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
                     .header("X-Internal-Request", "true")
                     .body(request)
                     .retrieve()
@@ -84,7 +110,7 @@ public class ServiceBClient {
                 throw new ServiceCommunicationException("Service B returned null response");
             }
 
-            log.info("Successfully received response from Service B");
+            log.debug("Successfully received response from Service B");
             return response;
 
         } catch (RestClientException e) {
@@ -93,4 +119,112 @@ public class ServiceBClient {
                     "Failed to communicate with Service B: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Call Service B with the delta protocol asynchronously
+     *
+     * Same execution, hedging and circuit breaking as processMessageAsync.
+     *
+     * @param request Template fingerprints already held by Service A
+     * @return CompletableFuture with the chain fragments from Service B onwards
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public CompletableFuture<ChainDeltaResponse> processDeltaAsync(ChainDeltaRequest request) {
+        return serviceBGuard.callAsync(
+                () -> SheddableTask.supplyAsync(() -> exchangeDelta(request), asyncRestClientExecutor), true);
+    }
+
+    /**
+     * Call Service B with the delta protocol synchronously
+     *
+     * @param request Template fingerprints already held by Service A
+     * @return Chain fragments from Service B onwards
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public ChainDeltaResponse processDelta(ChainDeltaRequest request) {
+        log.debug("Calling Service B synchronously with the delta protocol");
+
+        return serviceBGuard.call(() -> exchangeDelta(request));
+    }
+
+    private ChainDeltaResponse exchangeDelta(ChainDeltaRequest request) {
+        try {
+            ChainDeltaResponse response = serviceBRestClient.post()
+                    .uri("/internal/service-b/delta")
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
+                    .header("X-Internal-Request", "true")
+                    .body(request)
+                    .retrieve()
+                    .body(ChainDeltaResponse.class);
+
+            if (response == null || response.getFragments() == null) {
+                throw new ServiceCommunicationException("Service B returned null delta response");
+            }
+
+            log.debug("Successfully received delta response from Service B");
+            return response;
+
+        } catch (RestClientException e) {
+            log.error("Failed to communicate with Service B for delta: {}", e.getMessage(), e);
+            throw new ServiceCommunicationException(
+                    "Failed to communicate with Service B: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Call Service B with a batch of items asynchronously
+     *
+     * @param request Batch of item requests
+     * @return CompletableFuture with per-item results from Service B, in request order
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public CompletableFuture<BatchResponse<ServiceBResponse>> processBatchAsync(BatchRequest<ServiceBRequest> request) {
+        // Batches are too large to duplicate, so they are not hedged
+        return serviceBGuard.callAsync(() -> SheddableTask.supplyAsync(() -> {
+            log.debug("Calling Service B asynchronously with batch of {} items on thread: {}",
+                    request.getItems().size(), Thread.currentThread().getName());
+
+            return exchangeBatch(request);
+        }, asyncRestClientExecutor), false);
+    }
+
+    /**
+     * Call Service B with a batch of items synchronously
+     *
+     * @param request Batch of item requests
+     * @return Per-item results from Service B, in request order
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public BatchResponse<ServiceBResponse> processBatch(BatchRequest<ServiceBRequest> request) {
+        log.debug("Calling Service B synchronously with batch of {} items", request.getItems().size());
+
+        return serviceBGuard.call(() -> exchangeBatch(request));
+    }
+
+    private BatchResponse<ServiceBResponse> exchangeBatch(BatchRequest<ServiceBRequest> request) {
+        try {
+            BatchResponse<ServiceBResponse> response = serviceBRestClient.post()
+                    .uri("/internal/service-b/append/batch")
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
+                    .header("X-Internal-Request", "true")
+                    .body(request)
+                    .retrieve()
+                    .body(new ParameterizedTypeReference<BatchResponse<ServiceBResponse>>() {
+                    });
+
+            if (response == null) {
+                throw new ServiceCommunicationException("Service B returned null batch response");
+            }
+
+            log.debug("Successfully received batch response from Service B");
+            return response;
+
+        } catch (RestClientException e) {
+            log.error("Failed to communicate with Service B for batch: {}", e.getMessage(), e);
+            throw new ServiceCommunicationException(
+                    "Failed to communicate with Service B: " + e.getMessage(), e);
+        }
+    }
+}
@@ -2,16 +2,23 @@ package org.example.microservicedemo.client;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.concurrent.SheddableTask;
+import org.example.microservicedemo.config.WireFormat;
 import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.example.microservicedemo.model.BatchRequest;
+import org.example.microservicedemo.model.BatchResponse;
+import org.example.microservicedemo.model.ChainDeltaRequest;
+import org.example.microservicedemo.model.ChainDeltaResponse;
 import org.example.microservicedemo.model.ServiceCRequest;
 import org.example.microservicedemo.model.ServiceCResponse;
-import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Client for communicating with Service C using RestClient with async support
@@ -22,43 +29,57 @@ import java.util.concurrent.CompletableFuture;
 public class ServiceCClient {
 
     private final RestClient serviceCRestClient;
+    private final Executor asyncRestClientExecutor;
+    private final DownstreamGuard serviceCGuard;
+
+    @Value("${services.rest-client.wire-format:json}")
+    private WireFormat wireFormat;
 
     /**
      * Call Service C to process final message asynchronously
      *
+     * The exchange is submitted once, straight to asyncRestClientExecutor, so it follows the
+     * configured execution mode (platform pool or one virtual thread per call). In platform
+     * mode a call that waits too long in the queue fails with a RejectedExecutionException.
+     * When hedging is enabled a slow call is duplicated once, and while Service C's circuit
+     * breaker is open calls fail fast with CircuitBreakerOpenException.
+     *
      * @param request Request containing current message
      * @return CompletableFuture with Response from Service C with final message
      * @throws ServiceCommunicationException if communication fails
      */
-    @Async("asyncRestClientExecutor")
     public CompletableFuture<ServiceCResponse> processMessageAsync(ServiceCRequest request) {
-        log.info("Calling Service C asynchronously with message length: {} on thread: {}",
+        return serviceCGuard.callAsync(
+                () -> SheddableTask.supplyAsync(() -> exchangeAsync(request), asyncRestClientExecutor), true);
+    }
+
+    private ServiceCResponse exchangeAsync(ServiceCRequest request) {
+        log.debug("Calling Service C asynchronously with message length: {} on thread: {}",
                 request.getCurrentMessage().length(), Thread.currentThread().getName());
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                ServiceCResponse response = serviceCRestClient.post()
-                        .uri("/internal/service-c/finalize")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .header("X-Internal-Request", "true")
-                        .body(request)
-                        .retrieve()
-                        .body(ServiceCResponse.class);
-
-                if (response == null) {
-                    throw new ServiceCommunicationException("Service C returned null response");
-                }
-
-                log.info("Successfully received async response from Service C on thread: {}",
-                        Thread.currentThread().getName());
-                return response;
-
-            } catch (RestClientException e) {
-                log.error("Failed to communicate with Service C asynchronously: {}", e.getMessage(), e);
-                throw new ServiceCommunicationException(
-                        "Failed to communicate with Service C: " + e.getMessage(), e);
+        try {
+            ServiceCResponse response = serviceCRestClient.post()
+                    .uri("/internal/service-c/finalize")
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
+                    .header("X-Internal-Request", "true")
+                    .body(request)
+                    .retrieve()
+                    .body(ServiceCResponse.class);
+
+            if (response == null) {
+                throw new ServiceCommunicationException("Service C returned null response");
             }
-        });
+
+            log.debug("Successfully received async response from Service C on thread: {}",
+                    Thread.currentThread().getName());
+            return response;
+
+        } catch (RestClientException e) {
+            log.error("Failed to communicate with Service C asynchronously: {}", e.getMessage(), e);
+            throw new ServiceCommunicationException(
+                    "Failed to communicate with Service C: " + e.getMessage(), e);
+        }
     }
 
     /**
@@ -69,12 +90,17 @@ public class ServiceCClient {
      * @throws ServiceCommunicationException if communication fails
      */
     public ServiceCResponse processMessage(ServiceCRequest request) {
-        log.info("Calling Service C synchronously with message length: {}", request.getCurrentMessage().length());
+        log.debug("Calling Service C synchronously with message length: {}", request.getCurrentMessage().length());
 
+        return serviceCGuard.call(() -> exchange(request));
+    }
+
+    private ServiceCResponse exchange(ServiceCRequest request) {
         try {
             ServiceCResponse response = serviceCRestClient.post()
                     .uri("/internal/service-c/finalize")
-                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
                     .header("X-Internal-Request", "true")
                     .body(request)
                     .retrieve()
@@ -84,7 +110,7 @@ public class ServiceCClient {
                 throw new ServiceCommunicationException("Service C returned null response");
             }
 
-            log.info("Successfully received response from Service C");
+            log.debug("Successfully received response from Service C");
             return response;
 
         } catch (RestClientException e) {
@@ -93,4 +119,112 @@ public class ServiceCClient {
                     "Failed to communicate with Service C: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Call Service C with the delta protocol asynchronously
+     *
+     * Same execution, hedging and circuit breaking as processMessageAsync.
+     *
+     * @param request Template fingerprints already held by Service A
+     * @return CompletableFuture with the chain fragments from Service C onwards
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public CompletableFuture<ChainDeltaResponse> processDeltaAsync(ChainDeltaRequest request) {
+        return serviceCGuard.callAsync(
+                () -> SheddableTask.supplyAsync(() -> exchangeDelta(request), asyncRestClientExecutor), true);
+    }
+
+    /**
+     * Call Service C with the delta protocol synchronously
+     *
+     * @param request Template fingerprints already held by Service A
+     * @return Chain fragments from Service C onwards
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public ChainDeltaResponse processDelta(ChainDeltaRequest request) {
+        log.debug("Calling Service C synchronously with the delta protocol");
+
+        return serviceCGuard.call(() -> exchangeDelta(request));
+    }
+
+    private ChainDeltaResponse exchangeDelta(ChainDeltaRequest request) {
+        try {
+            ChainDeltaResponse response = serviceCRestClient.post()
+                    .uri("/internal/service-c/delta")
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
+                    .header("X-Internal-Request", "true")
+                    .body(request)
+                    .retrieve()
+                    .body(ChainDeltaResponse.class);
+
+            if (response == null || response.getFragments() == null) {
+                throw new ServiceCommunicationException("Service C returned null delta response");
+            }
+
+            log.debug("Successfully received delta response from Service C");
+            return response;
+
+        } catch (RestClientException e) {
+            log.error("Failed to communicate with Service C for delta: {}", e.getMessage(), e);
+            throw new ServiceCommunicationException(
+                    "Failed to communicate with Service C: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Call Service C with a batch of items asynchronously
+     *
+     * @param request Batch of item requests
+     * @return CompletableFuture with per-item results from Service C, in request order
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public CompletableFuture<BatchResponse<ServiceCResponse>> processBatchAsync(BatchRequest<ServiceCRequest> request) {
+        // Batches are too large to duplicate, so they are not hedged
+        return serviceCGuard.callAsync(() -> SheddableTask.supplyAsync(() -> {
+            log.debug("Calling Service C asynchronously with batch of {} items on thread: {}",
+                    request.getItems().size(), Thread.currentThread().getName());
+
+            return exchangeBatch(request);
+        }, asyncRestClientExecutor), false);
+    }
+
+    /**
+     * Call Service C with a batch of items synchronously
+     *
+     * @param request Batch of item requests
+     * @return Per-item results from Service C, in request order
+     * @throws ServiceCommunicationException if communication fails
+     */
+    public BatchResponse<ServiceCResponse> processBatch(BatchRequest<ServiceCRequest> request) {
+        log.debug("Calling Service C synchronously with batch of {} items", request.getItems().size());
+
+        return serviceCGuard.call(() -> exchangeBatch(request));
+    }
+
+    private BatchResponse<ServiceCResponse> exchangeBatch(BatchRequest<ServiceCRequest> request) {
+        try {
+            BatchResponse<ServiceCResponse> response = serviceCRestClient.post()
+                    .uri("/internal/service-c/finalize/batch")
+                    .contentType(wireFormat.getMediaType())
+                    .accept(wireFormat.getMediaType())
+                    .header("X-Internal-Request", "true")
+                    .body(request)
+                    .retrieve()
+                    .body(new ParameterizedTypeReference<BatchResponse<ServiceCResponse>>() {
+                    });
+
+            if (response == null) {
+                throw new ServiceCommunicationException("Service C returned null batch response");
+            }
+
+            log.debug("Successfully received batch response from Service C");
+            return response;
+
+        } catch (RestClientException e) {
+            log.error("Failed to communicate with Service C for batch: {}", e.getMessage(), e);
+            throw new ServiceCommunicationException(
+                    "Failed to communicate with Service C: " + e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package org.example.microservicedemo.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limit driven by observed round-trip times
+ *
+ * Calls are admitted while fewer than the current limit are in flight; anything beyond
+ * is refused immediately so callers can fail fast instead of queueing. Each completed call
+ * adjusts the limit: a call that failed or took longer than the RTT threshold multiplies
+ * it by the backoff ratio, while a fast success adds one - but only when at least half the
+ * limit was in use, so an idle service does not inflate its limit without evidence.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long rttThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, Duration rttThreshold) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttThresholdNanos = rttThreshold.toNanos();
+        this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = this.initialLimit;
+    }
+
+    /**
+     * Admit one call if the limit allows
+     *
+     * @return Permit to release when the call completes, or null if the call must be rejected
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    private synchronized void onComplete(long rttNanos, int inFlightAtStart, boolean failed) {
+        double current = limit;
+        if (failed || rttNanos > rttThresholdNanos) {
+            limit = Math.max(minLimit, current * backoffRatio);
+        } else if (inFlightAtStart * 2 >= current) {
+            limit = Math.min(maxLimit, current + 1);
+        }
+    }
+
+    /**
+     * Forget what the limit learned so far and start again from the initial limit
+     */
+    public synchronized void reset() {
+        limit = initialLimit;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * One admitted call; release exactly once
+     */
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * @param failed Whether the call failed, which counts as a congestion signal
+         */
+        public void release(boolean failed) {
+            inFlight.decrementAndGet();
+            onComplete(System.nanoTime() - startNanos, inFlightAtStart, failed);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.microservicedemo.concurrent;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies a CoDel policy to a queued executor
+ *
+ * Stamps each task when it is submitted and, when a worker picks it up, asks the
+ * ControlledDelay whether it waited too long. Shed SheddableTasks fail their caller
+ * with a RejectedExecutionException instead of running.
+ */
+public class CoDelTaskDecorator implements TaskDecorator {
+
+    private final ControlledDelay controlledDelay;
+    private final LongAdder shed = new LongAdder();
+
+    public CoDelTaskDecorator(ControlledDelay controlledDelay) {
+        this.controlledDelay = controlledDelay;
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        long enqueued = System.nanoTime();
+        return () -> {
+            long now = System.nanoTime();
+            long delay = now - enqueued;
+            if (controlledDelay.shouldShed(delay, now) && task instanceof SheddableTask sheddable) {
+                shed.increment();
+                sheddable.shed(new RejectedExecutionException(
+                        "Task shed after waiting " + TimeUnit.NANOSECONDS.toMillis(delay) + "ms in the executor queue"));
+                return;
+            }
+            task.run();
+        };
+    }
+
+    /**
+     * @return Total tasks shed since startup
+     */
+    public long getShed() {
+        return shed.sum();
+    }
+
+    public boolean isOverloaded() {
+        return controlledDelay.isOverloaded();
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.microservicedemo.concurrent;
+
+import java.time.Duration;
+
+/**
+ * CoDel (controlled delay) overload detector for a task queue
+ *
+ * Tracks the minimum time tasks spent queued over each interval. If even the best task of
+ * the last interval waited longer than the target, the queue is standing rather than
+ * absorbing a burst, and the executor is considered overloaded for the next interval.
+ * While overloaded, tasks that waited more than twice the target are shed: they are
+ * already late, and running them would only make every task behind them late as well.
+ */
+public class ControlledDelay {
+
+    private final long targetNanos;
+    private final long intervalNanos;
+
+    private long intervalEnd;
+    // No samples yet in the first interval
+    private long minDelay = Long.MAX_VALUE;
+    private boolean overloaded;
+
+    public ControlledDelay(Duration target, Duration interval) {
+        this.targetNanos = target.toNanos();
+        this.intervalNanos = interval.toNanos();
+        this.intervalEnd = System.nanoTime() + intervalNanos;
+    }
+
+    /**
+     * Account for a task leaving the queue and decide whether to drop it
+     *
+     * @param delayNanos Time the task spent queued
+     * @param nowNanos   Current System.nanoTime()
+     * @return true if the task should be shed instead of run
+     */
+    public synchronized boolean shouldShed(long delayNanos, long nowNanos) {
+        if (nowNanos - intervalEnd >= 0) {
+            overloaded = minDelay != Long.MAX_VALUE && minDelay > targetNanos;
+            intervalEnd = nowNanos + intervalNanos;
+            minDelay = delayNanos;
+        } else if (delayNanos < minDelay) {
+            minDelay = delayNanos;
+        }
+        return overloaded && delayNanos > 2 * targetNanos;
+    }
+
+    public synchronized boolean isOverloaded() {
+        return overloaded;
+    }
+}
@@ -0,0 +1,145 @@
+package org.example.microservicedemo.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-key token bucket rate limit in a fixed-size, lock-free table
+ *
+ * Each bucket is kept as the generic cell rate algorithm's theoretical arrival time: the
+ * instant the bucket would be full again. A request is admitted while that instant is at
+ * most burst - 1 emission intervals ahead, and admitting it pushes the instant one interval
+ * further. This allows bursts of up to burst requests and permitsPerSecond on average, like a
+ * token bucket, with a single long per key and a single compare-and-set per request.
+ *
+ * Buckets live in a power-of-two array of slots. A key hashes to a window of PROBES
+ * consecutive slots, and each slot is updated independently, so requests for different
+ * keys never contend on a lock. A bucket whose arrival time has passed is full, which is
+ * the same as having no bucket, so its slot is reused by the next key hashing there. That
+ * evicts idle keys without a sweeper. If every slot in the window holds an active bucket,
+ * the one closest to full is evicted. Memory is therefore bounded by capacity, however
+ * many distinct keys are seen.
+ */
+public class KeyedRateLimiter {
+
+    private static final int PROBES = 8;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicReferenceArray<Bucket> slots;
+    private final int mask;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public KeyedRateLimiter(double permitsPerSecond, int burst, int capacity) {
+        if (permitsPerSecond <= 0 || burst < 1 || capacity < PROBES) {
+            throw new IllegalArgumentException("Invalid rate limit settings");
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Take one permit for the key if its bucket allows
+     *
+     * @return 0 if admitted, otherwise the nanoseconds until the key will be admitted again
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        int hash = key.hashCode();
+        int start = hash ^ (hash >>> 16);
+
+        while (true) {
+            boolean contended = false;
+            int free = -1;
+            int fullest = -1;
+            Bucket freeBucket = null;
+            Bucket fullestBucket = null;
+
+            for (int i = 0; i < PROBES; i++) {
+                int index = (start + i) & mask;
+                Bucket bucket = slots.get(index);
+
+                if (bucket != null && bucket.key.equals(key)) {
+                    long arrival = Math.max(bucket.arrival, now);
+                    if (arrival - now > burstToleranceNanos) {
+                        rejected.increment();
+                        return arrival - burstToleranceNanos - now;
+                    }
+                    if (slots.compareAndSet(index, bucket, new Bucket(key, arrival + emissionIntervalNanos))) {
+                        return 0;
+                    }
+                    contended = true;
+                    break;
+                }
+
+                if (bucket == null || bucket.arrival - now <= 0) {
+                    if (free == -1) {
+                        free = index;
+                        freeBucket = bucket;
+                    }
+                } else if (fullestBucket == null || bucket.arrival - fullestBucket.arrival < 0) {
+                    fullest = index;
+                    fullestBucket = bucket;
+                }
+            }
+
+            if (contended) {
+                // Lost a race on the key's own bucket, look again
+                continue;
+            }
+
+            // A new or idle key starts from a full bucket
+            Bucket created = new Bucket(key, now + emissionIntervalNanos);
+            if (free >= 0) {
+                if (slots.compareAndSet(free, freeBucket, created)) {
+                    return 0;
+                }
+            } else if (slots.compareAndSet(fullest, fullestBucket, created)) {
+                evicted.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Buckets that are not full; scans the whole table
+     */
+    public int getActiveBuckets() {
+        return getActiveBuckets(System.nanoTime());
+    }
+
+    int getActiveBuckets(long now) {
+        int active = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Bucket bucket = slots.get(i);
+            if (bucket != null && bucket.arrival - now > 0) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    private record Bucket(String key, long arrival) {
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.microservicedemo.concurrent;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical concurrent calls
+ *
+ * The first caller for a key (the leader) starts the call; callers arriving while it is in
+ * flight (followers) attach to the same outcome instead of starting their own. Bookkeeping
+ * is a concurrent map of in-flight futures updated with putIfAbsent/remove, so no lock is
+ * held while a call runs. The entry is removed before the outcome is published, so callers
+ * arriving after completion always start a fresh call.
+ *
+ * Some failures belong to the leader's request rather than to the call, such as the
+ * leader's own deadline passing. A follower does not inherit those: it starts the call
+ * itself, under its own request context captured when it joined.
+ *
+ * @param <K> Key identifying identical calls
+ * @param <V> Result type
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder reruns = new LongAdder();
+
+    private final Predicate<Throwable> leaderFailure;
+    private final TaskDecorator context;
+
+    /**
+     * Coalescer that shares every outcome with the followers
+     */
+    public RequestCoalescer() {
+        this(error -> false, task -> task);
+    }
+
+    /**
+     * @param leaderFailure Failures private to the leader's request, which followers rerun instead of sharing
+     * @param context       Carries the request context of a follower to its rerun
+     */
+    public RequestCoalescer(Predicate<Throwable> leaderFailure, TaskDecorator context) {
+        this.leaderFailure = leaderFailure;
+        this.context = context;
+    }
+
+    /**
+     * Run the call for a key, or join the one already in flight
+     *
+     * Every caller gets its own dependent future, so one caller completing or cancelling
+     * its future does not affect the others. Failures reach every caller, except those the
+     * followers rerun.
+     *
+     * @param key  Key identifying identical calls
+     * @param call Starts the call; only invoked by the leader
+     * @return Future completed with the shared outcome
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) {
+            return follow(existing, call);
+        }
+
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            return follow(existing, call);
+        }
+
+        leaders.increment();
+        start(call, shared, () -> inFlight.remove(key, shared));
+        return shared.copy();
+    }
+
+    private CompletableFuture<V> follow(CompletableFuture<V> existing, Supplier<CompletableFuture<V>> call) {
+        followers.increment();
+
+        CompletableFuture<V> outcome = new CompletableFuture<>();
+        // Decorated here, on the follower's thread, where its request context is set
+        Runnable rerun = context.decorate(() -> {
+            reruns.increment();
+            start(call, outcome, () -> { });
+        });
+        existing.whenComplete((result, error) -> {
+            if (error == null) {
+                outcome.complete(result);
+            } else if (leaderFailure.test(error)) {
+                rerun.run();
+            } else {
+                outcome.completeExceptionally(error);
+            }
+        });
+        return outcome;
+    }
+
+    /**
+     * Start the call and complete outcome with its result, after running done
+     */
+    private void start(Supplier<CompletableFuture<V>> call, CompletableFuture<V> outcome, Runnable done) {
+        try {
+            call.get().whenComplete((result, error) -> {
+                done.run();
+                if (error != null) {
+                    outcome.completeExceptionally(unwrap(error));
+                } else {
+                    outcome.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            done.run();
+            outcome.completeExceptionally(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Number of distinct calls currently in flight
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Calls actually started
+     */
+    public long getLeaders() {
+        return leaders.sum();
+    }
+
+    /**
+     * Calls that joined an in-flight call instead of starting one
+     */
+    public long getFollowers() {
+        return followers.sum();
+    }
+
+    /**
+     * Followers that started the call themselves because the leader failed for its own reasons
+     */
+    public long getReruns() {
+        return reruns.sum();
+    }
+
+    /**
+     * Share of all calls that were collapsed onto an in-flight call (0.0 - 1.0)
+     */
+    public double getCollapseRatio() {
+        long collapsed = followers.sum();
+        long total = collapsed + leaders.sum();
+        return total == 0 ? 0.0 : (double) collapsed / total;
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.microservicedemo.concurrent;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution of idempotent calls
+ *
+ * Starts the call and, if it has not completed after the hedge delay, starts one duplicate
+ * and takes whichever succeeds first. The delay is a percentile of recently observed
+ * latencies (never below min-delay), so only the slow tail gets a second attempt. Hedges
+ * are paid for from a budget that grows by max-ratio per call, which caps the extra load
+ * at roughly that share of calls even when everything is slow. The call fails only when
+ * every started attempt has failed.
+ *
+ * The duplicate is started from a timer thread, so the request context of the caller
+ * (deadline, trace) is captured when the call is made and attached while it starts.
+ */
+public class RequestHedger {
+
+    private static final int SAMPLES = 512;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long tokensPerCall;
+    private final TaskDecorator context;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong budget = new AtomicLong();
+    // No hedging until enough latencies have been seen to pick a delay
+    private volatile long hedgeDelayNanos = -1;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+
+    /**
+     * @param context Carries the request context of the calling thread to the duplicate attempt
+     */
+    public RequestHedger(boolean enabled, double percentile, Duration minDelay, double maxRatio,
+                         TaskDecorator context) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.tokensPerCall = Math.round(maxRatio * TOKEN);
+        this.context = context;
+    }
+
+    /**
+     * Run the call, hedging it once if it is slow
+     *
+     * @param attempt Starts one attempt of the call; invoked at most twice
+     * @return Future completed by the first successful attempt
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> attempt) {
+        if (!enabled) {
+            return attempt.get();
+        }
+
+        calls.increment();
+        budget.getAndUpdate(tokens -> Math.min(MAX_TOKENS, tokens + tokensPerCall));
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicBoolean answered = new AtomicBoolean();
+        start(attempt, result, pending, answered, false);
+
+        long delay = hedgeDelayNanos;
+        if (delay >= 0) {
+            // Decorated here, on the calling thread, where the request context is set
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(context.decorate(() -> {
+                if (result.isDone() || !spendBudget()
+                        || pending.getAndUpdate(count -> count == 0 ? 0 : count + 1) == 0) {
+                    return;
+                }
+                hedges.increment();
+                start(attempt, result, pending, answered, true);
+            }));
+        }
+        return result;
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> attempt, CompletableFuture<T> result,
+                           AtomicInteger pending, AtomicBoolean answered, boolean hedge) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = attempt.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                record(System.nanoTime() - start);
+                // Count the win before the caller can observe the result
+                if (answered.compareAndSet(false, true)) {
+                    if (hedge) {
+                        wins.increment();
+                    }
+                    result.complete(value);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private boolean spendBudget() {
+        long before = budget.getAndUpdate(tokens -> tokens >= TOKEN ? tokens - TOKEN : tokens);
+        return before >= TOKEN;
+    }
+
+    private void record(long latencyNanos) {
+        long count = recorded.getAndIncrement();
+        latencies.set((int) (count % SAMPLES), latencyNanos);
+        if ((count + 1) % RECOMPUTE_EVERY == 0) {
+            int size = (int) Math.min(count + 1, SAMPLES);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            long value = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+            hedgeDelayNanos = Math.max(minDelayNanos, value);
+        }
+    }
+
+    /**
+     * Forget the latencies and budget learned so far; hedging resumes once enough new latencies are seen
+     */
+    public void reset() {
+        hedgeDelayNanos = -1;
+        recorded.set(0);
+        budget.set(0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Current hedge delay in milliseconds, or -1 while not enough latencies are known
+     */
+    public double getHedgeDelayMillis() {
+        long delay = hedgeDelayNanos;
+        return delay < 0 ? -1 : delay / 1_000_000.0;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return Duplicate attempts started
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return Calls answered by the duplicate attempt
+     */
+    public long getWins() {
+        return wins.sum();
+    }
+
+    public double getHedgeRate() {
+        long total = calls.sum();
+        return total == 0 ? 0.0 : (double) hedges.sum() / total;
+    }
+}
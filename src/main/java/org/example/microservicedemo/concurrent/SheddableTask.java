@@ -0,0 +1,54 @@
+package org.example.microservicedemo.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Task that can be dropped from a queue without leaving its caller waiting
+ *
+ * Executors that shed load call shed instead of run; plain Runnables are never shed.
+ */
+public interface SheddableTask extends Runnable {
+
+    /**
+     * Called instead of run when the task is dropped
+     */
+    void shed(RejectedExecutionException reason);
+
+    /**
+     * Run a supplier on the executor as a sheddable task
+     *
+     * Unlike CompletableFuture.supplyAsync, the returned future also fails when the task is
+     * rejected on submission or shed while queued.
+     */
+    static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        SheddableTask task = new SheddableTask() {
+            @Override
+            public void run() {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(supplier.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void shed(RejectedExecutionException reason) {
+                future.completeExceptionally(reason);
+            }
+        };
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
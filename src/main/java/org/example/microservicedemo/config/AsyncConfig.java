@@ -1,50 +1,147 @@
 package org.example.microservicedemo.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.example.microservicedemo.concurrent.CoDelTaskDecorator;
+import org.example.microservicedemo.concurrent.ControlledDelay;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.metrics.ChainMetrics;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
- * Configuration for asynchronous execution using @Async annotation
- * Provides a custom thread pool for RestClient async operations
+ * Configuration for asynchronous execution
+ * Provides the executor the RestClient clients submit their async calls to
  */
 @Configuration
-@EnableAsync
 @Slf4j
 public class AsyncConfig {
 
+    @Value("${services.execution-mode:platform}")
+    private ExecutionMode executionMode;
+
+    @Value("${services.executor.threads:10}")
+    private int threads;
+
+    @Value("${services.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${services.executor.codel-target:5ms}")
+    private Duration codelTarget;
+
+    @Value("${services.executor.codel-interval:100ms}")
+    private Duration codelInterval;
+
     /**
      * Custom executor for async RestClient calls
      *
-     * Thread pool configuration:
-     * - Core pool size: 5 threads (always maintained)
-     * - Max pool size: 10 threads (scales up under load)
-     * - Queue capacity: 25 tasks (queued when all threads busy)
+     * Platform mode thread pool configuration:
+     * - Pool size: executor.threads threads (default 10, always maintained)
+     * - Queue: managed by CoDel rather than by its length. When even the shortest wait
+     *   over an interval exceeds codel-target, calls that waited more than twice the
+     *   target are shed with a RejectedExecutionException instead of being run late.
+     * - Queue capacity: executor.queue-capacity tasks, a hard cap on memory only
+     *
+     * Virtual mode starts one virtual thread per call, so in-flight calls are
+     * not capped by pool and queue sizes.
+     *
+     * In both modes tasks run under the chain trace and deadline of the request that submitted them.
      *
-     * @return Configured ThreadPoolTaskExecutor
+     * Metrics, tagged with executor, mode and threads (platform|virtual):
+     * - chain.executor.active: tasks currently running
+     * - chain.executor.queued: tasks waiting for a thread (always 0 with virtual threads)
+     * - chain.executor.rejected: tasks refused because the queue was full (platform only)
+     * - chain.executor.shed: tasks dropped by CoDel after waiting too long (platform only)
+     *
+     * @return Configured executor for the selected execution mode
      */
     @Bean(name = "asyncRestClientExecutor")
-    public Executor asyncRestClientExecutor() {
-        log.info("Initializing async RestClient executor");
+    public Executor asyncRestClientExecutor(MeterRegistry meterRegistry, ChainMetrics chainMetrics,
+                                            ChainTraceRecorder chainTraceRecorder, RequestDeadlines requestDeadlines) {
+        log.info("Initializing async RestClient executor in {} mode", executionMode);
 
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        Tags tags = Tags.of("executor", "asyncRestClientExecutor",
+                "mode", chainMetrics.getMode(),
+                "threads", executionMode.name().toLowerCase());
+        Counter rejected = Counter.builder("chain.executor.rejected")
+                .description("Tasks rejected because the executor was saturated")
+                .tags(tags)
+                .register(meterRegistry);
+
+        if (executionMode == ExecutionMode.VIRTUAL) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("AsyncRestClient-");
+            executor.setVirtualThreads(true);
 
-        // Core pool size - threads always kept alive
-        executor.setCorePoolSize(5);
+            // No pool to ask, so count running tasks as they pass through
+            AtomicInteger active = new AtomicInteger();
+            TaskDecorator trace = chainTraceRecorder.taskDecorator();
+            TaskDecorator deadline = requestDeadlines.taskDecorator();
+            executor.setTaskDecorator(task -> {
+                Runnable traced = deadline.decorate(trace.decorate(task));
+                return () -> {
+                    active.incrementAndGet();
+                    try {
+                        traced.run();
+                    } finally {
+                        active.decrementAndGet();
+                    }
+                };
+            });
+            registerExecutorGauges(meterRegistry, tags, active::get, () -> 0);
 
-        // Maximum pool size - max threads that can be created
-        executor.setMaxPoolSize(10);
+            // Wait for in-flight calls to complete on shutdown (milliseconds)
+            executor.setTaskTerminationTimeout(30_000);
 
-        // Queue capacity - number of tasks to queue before rejecting
-        executor.setQueueCapacity(25);
+            log.info("Async RestClient executor initialized with virtual threads");
+
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // Fixed pool size - the queue only grows threads once full, which CoDel prevents
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+
+        // Queue capacity - hard cap before rejecting; CoDel sheds long before it is reached
+        executor.setQueueCapacity(queueCapacity);
 
         // Thread name prefix for easier debugging
         executor.setThreadNamePrefix("AsyncRestClient-");
 
+        // Shed tasks that waited too long while the queue is standing
+        CoDelTaskDecorator coDel = new CoDelTaskDecorator(new ControlledDelay(codelTarget, codelInterval));
+        TaskDecorator trace = chainTraceRecorder.taskDecorator();
+        TaskDecorator deadline = requestDeadlines.taskDecorator();
+        executor.setTaskDecorator(task -> deadline.decorate(trace.decorate(coDel.decorate(task))));
+        FunctionCounter.builder("chain.executor.shed", coDel, CoDelTaskDecorator::getShed)
+                .description("Tasks shed by CoDel after waiting too long in the queue")
+                .tags(tags)
+                .register(meterRegistry);
+
+        // Count rejections, then fail the call as before
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            new ThreadPoolExecutor.AbortPolicy().rejectedExecution(task, pool);
+        });
+
         // Wait for tasks to complete on shutdown
         executor.setWaitForTasksToCompleteOnShutdown(true);
 
@@ -54,9 +151,40 @@ public class AsyncConfig {
         // Initialize the executor
         executor.initialize();
 
-        log.info("Async RestClient executor initialized with corePoolSize={}, maxPoolSize={}, queueCapacity={}",
-                executor.getCorePoolSize(), executor.getMaxPoolSize(), executor.getQueueCapacity());
+        registerExecutorGauges(meterRegistry, tags, executor::getActiveCount, executor::getQueueSize);
+
+        log.info("Async RestClient executor initialized with threads={}, queueCapacity={}, "
+                        + "codelTarget={}, codelInterval={}",
+                executor.getCorePoolSize(), executor.getQueueCapacity(), codelTarget, codelInterval);
 
         return executor;
     }
+
+    private void registerExecutorGauges(MeterRegistry meterRegistry, Tags tags,
+                                        Supplier<Number> active, Supplier<Number> queued) {
+        Gauge.builder("chain.executor.active", active)
+                .description("Tasks currently running on the executor")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("chain.executor.queued", queued)
+                .description("Tasks waiting for an executor thread")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run Tomcat request handling on virtual threads in virtual execution mode
+     *
+     * Checked when Tomcat starts rather than with a bean condition, so an AOT-processed
+     * build, whose bean conditions are fixed at build time, still honours the mode.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (executionMode == ExecutionMode.VIRTUAL) {
+                log.info("Configuring Tomcat to handle requests on virtual threads");
+                protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+            }
+        };
+    }
 }
@@ -0,0 +1,19 @@
+package org.example.microservicedemo.config;
+
+/**
+ * Protocol used between the services for single messages
+ * Selected with services.chain-protocol, only applies with use-rest-client=true
+ */
+public enum ChainProtocol {
+
+    /**
+     * Every hop sends the message so far and returns the full message and chain
+     */
+    FULL,
+
+    /**
+     * Every hop returns only its template fingerprint, and the template text when the
+     * caller does not hold it yet; Service A renders the final message itself
+     */
+    DELTA
+}
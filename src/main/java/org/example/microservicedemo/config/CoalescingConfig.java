@@ -0,0 +1,69 @@
+package org.example.microservicedemo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.concurrent.RequestCoalescer;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.exception.DeadlineExceededException;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.service.MessageResponseCache;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Configuration for collapsing identical concurrent /api/message requests
+ */
+@Configuration
+@Slf4j
+public class CoalescingConfig {
+
+    /**
+     * Coalescer for Service A chain executions, keyed by user and template versions
+     *
+     * A leader that runs out of its own deadline fails with 504, but its followers have
+     * deadlines of their own, so they rerun the chain under those instead of sharing the
+     * failure. Otherwise a client sending a tiny X-Request-Timeout-Ms could fail every
+     * identical request that joined it.
+     *
+     * Metrics:
+     * - chain.coalescing.requests{role=leader|follower}: chains started vs. requests that joined one
+     * - chain.coalescing.reruns: followers that reran the chain because the leader's deadline passed
+     * - chain.coalescing.active: distinct chains currently in flight
+     * - chain.coalescing.collapse.ratio: share of requests served by another request's chain
+     */
+    @Bean
+    public RequestCoalescer<MessageResponseCache.Key, MessageResponse> messageRequestCoalescer(
+            MeterRegistry meterRegistry, ChainTraceRecorder chainTraceRecorder, RequestDeadlines requestDeadlines) {
+        log.info("Initializing request coalescer for Service A chain executions");
+
+        TaskDecorator trace = chainTraceRecorder.taskDecorator();
+        TaskDecorator deadline = requestDeadlines.taskDecorator();
+        RequestCoalescer<MessageResponseCache.Key, MessageResponse> coalescer = new RequestCoalescer<>(
+                error -> error instanceof DeadlineExceededException,
+                task -> deadline.decorate(trace.decorate(task)));
+
+        FunctionCounter.builder("chain.coalescing.requests", coalescer, RequestCoalescer::getLeaders)
+                .description("Requests that started a chain execution")
+                .tag("role", "leader")
+                .register(meterRegistry);
+        FunctionCounter.builder("chain.coalescing.requests", coalescer, RequestCoalescer::getFollowers)
+                .description("Requests that joined an in-flight chain execution")
+                .tag("role", "follower")
+                .register(meterRegistry);
+        FunctionCounter.builder("chain.coalescing.reruns", coalescer, RequestCoalescer::getReruns)
+                .description("Followers that reran the chain because the leader's deadline passed")
+                .register(meterRegistry);
+        Gauge.builder("chain.coalescing.active", coalescer, RequestCoalescer::getInFlight)
+                .description("Distinct chain executions currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("chain.coalescing.collapse.ratio", coalescer, RequestCoalescer::getCollapseRatio)
+                .description("Share of requests served by another request's chain execution")
+                .register(meterRegistry);
+
+        return coalescer;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.microservicedemo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.concurrent.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the adaptive concurrency limit in front of the Service A chain
+ */
+@Configuration
+@Slf4j
+public class ConcurrencyLimitConfig {
+
+    @Value("${services.concurrency-limit.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${services.concurrency-limit.min-limit:5}")
+    private int minLimit;
+
+    @Value("${services.concurrency-limit.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${services.concurrency-limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${services.concurrency-limit.rtt-threshold:1s}")
+    private Duration rttThreshold;
+
+    /**
+     * Limiter for Service A chain executions
+     *
+     * Metrics:
+     * - chain.concurrency.limit: current adaptive limit
+     * - chain.concurrency.inflight: chain executions currently admitted
+     * - chain.concurrency.rejected: requests rejected with 503 because the limit was reached
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter serviceAConcurrencyLimiter(MeterRegistry meterRegistry) {
+        log.info("Initializing adaptive concurrency limiter with initialLimit={}, minLimit={}, maxLimit={}, "
+                        + "backoffRatio={}, rttThreshold={}",
+                initialLimit, minLimit, maxLimit, backoffRatio, rttThreshold);
+
+        AdaptiveConcurrencyLimiter limiter =
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, rttThreshold);
+
+        Gauge.builder("chain.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for Service A chain executions")
+                .register(meterRegistry);
+        Gauge.builder("chain.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Service A chain executions currently admitted")
+                .register(meterRegistry);
+        FunctionCounter.builder("chain.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+
+        return limiter;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.microservicedemo.config;
+
+/**
+ * Threading model used for request handling and async downstream calls
+ * Selected with services.execution-mode
+ */
+public enum ExecutionMode {
+
+    /**
+     * Tomcat's worker pool and a bounded platform-thread pool for async RestClient calls
+     */
+    PLATFORM,
+
+    /**
+     * One virtual thread per Tomcat request and per async RestClient call
+     */
+    VIRTUAL
+}
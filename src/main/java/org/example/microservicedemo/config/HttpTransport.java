@@ -0,0 +1,23 @@
+package org.example.microservicedemo.config;
+
+/**
+ * HTTP transport used by the downstream RestClients
+ * Selected with services.rest-client.transport
+ */
+public enum HttpTransport {
+
+    /**
+     * HttpURLConnection without explicit pooling (legacy behaviour)
+     */
+    SIMPLE,
+
+    /**
+     * JDK HttpClient with HTTP/1.1 keep-alive or h2c multiplexing
+     */
+    JDK,
+
+    /**
+     * Apache HttpClient 5 with a pooling connection manager
+     */
+    APACHE
+}
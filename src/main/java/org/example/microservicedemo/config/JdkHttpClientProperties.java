@@ -0,0 +1,36 @@
+package org.example.microservicedemo.config;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * JVM-wide settings of the JDK HttpClient, applied at startup
+ *
+ * The JDK client reads its keep-alive timeouts from system properties once, when its
+ * connection pool class is loaded, so they are set from services.rest-client.idle-timeout
+ * as soon as the environment is prepared, before any bean can create a client. Values
+ * given on the command line (-Djdk.httpclient.keepalive.timeout=...) take precedence.
+ */
+public class JdkHttpClientProperties implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    private static final String KEEPALIVE_TIMEOUT = "jdk.httpclient.keepalive.timeout";
+    private static final String KEEPALIVE_TIMEOUT_H2 = "jdk.httpclient.keepalive.timeout.h2";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        Environment environment = event.getEnvironment();
+        Duration idleTimeout = Duration.ofMillis(
+                environment.getProperty("services.rest-client.idle-timeout", Long.class, 30000L));
+        String idleSeconds = String.valueOf(Math.max(1, idleTimeout.toSeconds()));
+
+        if (System.getProperty(KEEPALIVE_TIMEOUT) == null) {
+            System.setProperty(KEEPALIVE_TIMEOUT, idleSeconds);
+        }
+        if (System.getProperty(KEEPALIVE_TIMEOUT_H2) == null) {
+            System.setProperty(KEEPALIVE_TIMEOUT_H2, idleSeconds);
+        }
+    }
+}
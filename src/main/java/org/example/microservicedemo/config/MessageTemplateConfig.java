@@ -1,9 +1,14 @@
 package org.example.microservicedemo.config;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.example.microservicedemo.template.CompiledTemplate;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -24,29 +29,70 @@ public class MessageTemplateConfig {
         private String serviceName;
         private String description;
 
+        // Default template compiled once when the configuration is bound
+        @Setter(AccessLevel.NONE)
+        private volatile CompiledTemplate compiledDefault;
+
         // Using AtomicReference for thread-safe runtime updates
-        private final AtomicReference<String> runtimeTemplate = new AtomicReference<>();
+        private final AtomicReference<CompiledTemplate> runtimeTemplate = new AtomicReference<>();
+
+        // Bumped after every effective template change, so caches can key on it
+        @Getter(AccessLevel.NONE)
+        private final AtomicLong version = new AtomicLong();
+
+        public void setTemplate(String template) {
+            this.template = template;
+            this.compiledDefault = template != null ? CompiledTemplate.compile(template) : null;
+        }
 
         /**
          * Get the current template (runtime override or default)
          */
         public String getCurrentTemplate() {
-            String runtime = runtimeTemplate.get();
-            return runtime != null ? runtime : template;
+            CompiledTemplate current = getCompiledTemplate();
+            return current != null ? current.getSource() : null;
+        }
+
+        /**
+         * Get the current template in compiled form (runtime override or default)
+         */
+        public CompiledTemplate getCompiledTemplate() {
+            CompiledTemplate runtime = runtimeTemplate.get();
+            return runtime != null ? runtime : compiledDefault;
+        }
+
+        /**
+         * Version of the current template, incremented after each change
+         *
+         * The version is bumped after the new template is visible, so a reader that
+         * observes version n never renders with a template older than version n.
+         */
+        public long getVersion() {
+            return version.get();
         }
 
         /**
          * Update the template at runtime
+         *
+         * @return true if the current template changed
          */
-        public void updateTemplate(String newTemplate) {
-            runtimeTemplate.set(newTemplate);
+        public boolean updateTemplate(String newTemplate) {
+            CompiledTemplate compiled = CompiledTemplate.compile(newTemplate);
+            if (compiled.equals(getCompiledTemplate())) {
+                return false;
+            }
+            runtimeTemplate.set(compiled);
+            version.incrementAndGet();
+            return true;
         }
 
         /**
          * Reset to the default template from configuration
          */
         public void resetToDefault() {
-            runtimeTemplate.set(null);
+            if (runtimeTemplate.getAndSet(null) != null) {
+                version.incrementAndGet();
+            }
         }
     }
 }
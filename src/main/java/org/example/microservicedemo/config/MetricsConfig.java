@@ -0,0 +1,31 @@
+package org.example.microservicedemo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.metrics.ChainMetrics;
+import org.example.microservicedemo.metrics.TimedJacksonHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Configuration for chain metrics that hook into Spring infrastructure
+ */
+@Configuration
+@Slf4j
+public class MetricsConfig {
+
+    /**
+     * JSON converter timing serialization, used by controllers and RestClients alike
+     *
+     * Backs off Spring Boot's own MappingJackson2HttpMessageConverter and uses the same
+     * auto-configured ObjectMapper.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter timedJacksonHttpMessageConverter(ObjectMapper objectMapper,
+                                                                                ChainMetrics chainMetrics) {
+        log.info("Registering timed JSON message converter");
+
+        return new TimedJacksonHttpMessageConverter(objectMapper, chainMetrics);
+    }
+}
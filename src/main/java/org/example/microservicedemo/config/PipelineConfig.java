@@ -0,0 +1,37 @@
+package org.example.microservicedemo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration class for the N-stage chain pipeline
+ *
+ * Stages run in the order listed. When no stages are configured the classic
+ * Service A → B → C chain is used.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "pipeline")
+@Data
+public class PipelineConfig {
+
+    private List<StageDefinition> stages = new ArrayList<>();
+
+    @Data
+    public static class StageDefinition {
+        private String name;
+
+        // Required for local stages; remote stages use the template held by their instance
+        private String template;
+
+        // Placeholder receiving the message so far, or the user for the first stage;
+        // defaults to user for the first stage and previous_message for the others
+        private String placeholder;
+
+        // Base URL of the instance running this stage; unset means local
+        private String url;
+    }
+}
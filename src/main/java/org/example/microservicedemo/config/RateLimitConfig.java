@@ -0,0 +1,59 @@
+package org.example.microservicedemo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.concurrent.KeyedRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the per-user rate limit on GET /api/message
+ */
+@Configuration
+@Slf4j
+public class RateLimitConfig {
+
+    @Value("${services.rate-limit.requests-per-second:20}")
+    private double requestsPerSecond;
+
+    @Value("${services.rate-limit.burst:40}")
+    private int burst;
+
+    @Value("${services.rate-limit.capacity:65536}")
+    private int capacity;
+
+    /**
+     * Limiter keyed by user
+     *
+     * Metrics:
+     * - rate.limit.buckets: users whose bucket is not full
+     * - rate.limit.capacity: buckets the table can hold
+     * - rate.limit.rejected: requests rejected with 429
+     * - rate.limit.evicted: active buckets evicted because the table was crowded
+     */
+    @Bean
+    public KeyedRateLimiter userRateLimiter(MeterRegistry meterRegistry) {
+        log.info("Initializing per-user rate limiter with requestsPerSecond={}, burst={}, capacity={}",
+                requestsPerSecond, burst, capacity);
+
+        KeyedRateLimiter limiter = new KeyedRateLimiter(requestsPerSecond, burst, capacity);
+
+        Gauge.builder("rate.limit.buckets", limiter, KeyedRateLimiter::getActiveBuckets)
+                .description("Users whose rate limit bucket is not full")
+                .register(meterRegistry);
+        Gauge.builder("rate.limit.capacity", limiter, KeyedRateLimiter::getCapacity)
+                .description("Rate limit buckets the table can hold")
+                .register(meterRegistry);
+        FunctionCounter.builder("rate.limit.rejected", limiter, KeyedRateLimiter::getRejected)
+                .description("Requests rejected because the user exceeded their rate limit")
+                .register(meterRegistry);
+        FunctionCounter.builder("rate.limit.evicted", limiter, KeyedRateLimiter::getEvicted)
+                .description("Active rate limit buckets evicted to make room for another user")
+                .register(meterRegistry);
+
+        return limiter;
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.microservicedemo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.client.DownstreamGuard;
+import org.example.microservicedemo.concurrent.CircuitBreaker;
+import org.example.microservicedemo.concurrent.RequestHedger;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Duration;
+
+/**
+ * Configuration for hedged requests and circuit breakers on the Service B and C clients
+ */
+@Configuration
+@Slf4j
+public class ResilienceConfig {
+
+    @Value("${services.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${services.hedging.percentile:0.95}")
+    private double hedgingPercentile;
+
+    @Value("${services.hedging.min-delay:10ms}")
+    private Duration hedgingMinDelay;
+
+    @Value("${services.hedging.max-ratio:0.1}")
+    private double hedgingMaxRatio;
+
+    @Value("${services.circuit-breaker.enabled:true}")
+    private boolean circuitBreakerEnabled;
+
+    @Value("${services.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${services.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${services.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${services.circuit-breaker.open-duration:10s}")
+    private Duration openDuration;
+
+    @Value("${services.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    /**
+     * Guard for calls to Service B
+     */
+    @Bean
+    public DownstreamGuard serviceBGuard(MeterRegistry meterRegistry, ChainTraceRecorder chainTraceRecorder,
+                                        RequestDeadlines requestDeadlines) {
+        return buildGuard("Service B", "service-b", meterRegistry,
+                requestContext(chainTraceRecorder, requestDeadlines));
+    }
+
+    /**
+     * Guard for calls to Service C
+     */
+    @Bean
+    public DownstreamGuard serviceCGuard(MeterRegistry meterRegistry, ChainTraceRecorder chainTraceRecorder,
+                                        RequestDeadlines requestDeadlines) {
+        return buildGuard("Service C", "service-c", meterRegistry,
+                requestContext(chainTraceRecorder, requestDeadlines));
+    }
+
+    /**
+     * Trace and deadline of the calling request, for hedged attempts started from a timer thread
+     */
+    private static TaskDecorator requestContext(ChainTraceRecorder chainTraceRecorder,
+                                                RequestDeadlines requestDeadlines) {
+        TaskDecorator trace = chainTraceRecorder.taskDecorator();
+        TaskDecorator deadline = requestDeadlines.taskDecorator();
+        return task -> deadline.decorate(trace.decorate(task));
+    }
+
+    /**
+     * Metrics, tagged with downstream:
+     * - chain.hedge.calls / chain.hedge.sent / chain.hedge.wins: hedgeable calls, duplicates
+     *   started and calls answered by the duplicate
+     * - chain.hedge.rate: share of calls that were hedged
+     * - chain.hedge.delay: current hedge delay in ms (-1 until enough latencies are known)
+     * - chain.circuit.state: 0 closed, 1 half-open, 2 open
+     * - chain.circuit.failure.rate: failure rate over the sliding window
+     * - chain.circuit.rejected: calls refused without reaching the downstream
+     */
+    private DownstreamGuard buildGuard(String serviceName, String downstream, MeterRegistry meterRegistry,
+                                       TaskDecorator requestContext) {
+        log.info("Creating guard for {} with hedging={} (p{}, minDelay={}, maxRatio={}), circuitBreaker={} "
+                        + "(threshold={}, window={}, minimumCalls={}, openDuration={}, halfOpenCalls={})",
+                serviceName, hedgingEnabled, hedgingPercentile * 100, hedgingMinDelay, hedgingMaxRatio,
+                circuitBreakerEnabled, failureRateThreshold, windowSize, minimumCalls, openDuration, halfOpenCalls);
+
+        Tags tags = Tags.of("downstream", downstream);
+
+        RequestHedger hedger = new RequestHedger(hedgingEnabled, hedgingPercentile, hedgingMinDelay, hedgingMaxRatio,
+                requestContext);
+        FunctionCounter.builder("chain.hedge.calls", hedger, RequestHedger::getCalls)
+                .description("Calls eligible for hedging")
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("chain.hedge.sent", hedger, RequestHedger::getHedges)
+                .description("Hedged duplicate requests started")
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("chain.hedge.wins", hedger, RequestHedger::getWins)
+                .description("Calls answered by the hedged duplicate")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("chain.hedge.rate", hedger, RequestHedger::getHedgeRate)
+                .description("Share of calls that were hedged")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("chain.hedge.delay", hedger, RequestHedger::getHedgeDelayMillis)
+                .description("Current hedge delay in milliseconds")
+                .tags(tags)
+                .register(meterRegistry);
+
+        CircuitBreaker circuitBreaker = null;
+        if (circuitBreakerEnabled) {
+            circuitBreaker = new CircuitBreaker(serviceName, failureRateThreshold, windowSize, minimumCalls,
+                    openDuration, halfOpenCalls);
+            Gauge.builder("chain.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tags(tags)
+                    .register(meterRegistry);
+            Gauge.builder("chain.circuit.failure.rate", circuitBreaker, CircuitBreaker::getFailureRate)
+                    .description("Failure rate over the circuit breaker's sliding window")
+                    .tags(tags)
+                    .register(meterRegistry);
+            FunctionCounter.builder("chain.circuit.rejected", circuitBreaker, CircuitBreaker::getRejected)
+                    .description("Calls refused by the circuit breaker")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        return new DownstreamGuard(serviceName, circuitBreaker, hedger);
+    }
+}
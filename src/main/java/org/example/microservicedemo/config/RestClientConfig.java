@@ -1,22 +1,58 @@
 package org.example.microservicedemo.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.example.microservicedemo.client.ConnectionLimitInterceptor;
+import org.example.microservicedemo.client.PipelineClient;
+import org.example.microservicedemo.deadline.Deadline;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * Configuration for RestClient beans used for inter-service communication
+ *
+ * Each downstream gets its own transport instance, so connection limits, idle eviction
+ * and the pool gauges (http.client.pool.*) apply per downstream service. Every client
+ * carries the chain trace and request deadline downstream, and every transport cuts
+ * each call's read timeout to the deadline's remaining budget.
  */
 @Configuration
 @Slf4j
-public class RestClientConfig {
+public class RestClientConfig implements DisposableBean {
 
     @Value("${services.service-b.url:http://localhost:8081}")
     private String serviceBUrl;
@@ -24,52 +60,226 @@ public class RestClientConfig {
     @Value("${services.service-c.url:http://localhost:8082}")
     private String serviceCUrl;
 
+    @Value("${services.service-b.max-connections:50}")
+    private int serviceBMaxConnections;
+
+    @Value("${services.service-c.max-connections:50}")
+    private int serviceCMaxConnections;
+
     @Value("${services.rest-client.connect-timeout:5000}")
     private int connectTimeout;
 
     @Value("${services.rest-client.read-timeout:10000}")
     private int readTimeout;
 
+    @Value("${services.rest-client.transport:simple}")
+    private HttpTransport transport;
+
+    @Value("${services.rest-client.http-version:http-1.1}")
+    private String httpVersion;
+
+    @Value("${services.rest-client.idle-timeout:30000}")
+    private int idleTimeout;
+
+    @Value("${services.rest-client.wire-format:json}")
+    private WireFormat wireFormat;
+
+    @Value("${pipeline.max-connections:50}")
+    private int pipelineMaxConnections;
+
+    // Transports owning connections, closed on shutdown
+    private final List<AutoCloseable> openTransports = new CopyOnWriteArrayList<>();
+
     /**
      * RestClient for Service B
      */
     @Bean
-    public RestClient serviceBRestClient(RestClient.Builder builder) {
-        log.info("Creating RestClient for Service B with base URL: {}, connectTimeout: {}ms, readTimeout: {}ms",
-                serviceBUrl, connectTimeout, readTimeout);
-
-        return builder
-                .baseUrl(serviceBUrl)
-                .requestFactory(clientHttpRequestFactory())
-                .requestInterceptor(loggingInterceptor("Service-B"))
-                .build();
+    public RestClient serviceBRestClient(RestClient.Builder builder, MeterRegistry meterRegistry,
+                                         ChainTraceRecorder chainTraceRecorder, RequestDeadlines requestDeadlines) {
+        log.info("Creating RestClient for Service B with base URL: {}, transport: {}, maxConnections: {}, "
+                        + "connectTimeout: {}ms, readTimeout: {}ms",
+                serviceBUrl, transport, serviceBMaxConnections, connectTimeout, readTimeout);
+
+        return buildRestClient(builder, "Service-B", "service-b", serviceBUrl, serviceBMaxConnections, meterRegistry,
+                chainTraceRecorder, requestDeadlines);
     }
 
     /**
      * RestClient for Service C
      */
     @Bean
-    public RestClient serviceCRestClient(RestClient.Builder builder) {
-        log.info("Creating RestClient for Service C with base URL: {}, connectTimeout: {}ms, readTimeout: {}ms",
-                serviceCUrl, connectTimeout, readTimeout);
-
-        return builder
-                .baseUrl(serviceCUrl)
-                .requestFactory(clientHttpRequestFactory())
-                .requestInterceptor(loggingInterceptor("Service-C"))
-                .build();
+    public RestClient serviceCRestClient(RestClient.Builder builder, MeterRegistry meterRegistry,
+                                         ChainTraceRecorder chainTraceRecorder, RequestDeadlines requestDeadlines) {
+        log.info("Creating RestClient for Service C with base URL: {}, transport: {}, maxConnections: {}, "
+                        + "connectTimeout: {}ms, readTimeout: {}ms",
+                serviceCUrl, transport, serviceCMaxConnections, connectTimeout, readTimeout);
+
+        return buildRestClient(builder, "Service-C", "service-c", serviceCUrl, serviceCMaxConnections, meterRegistry,
+                chainTraceRecorder, requestDeadlines);
     }
 
     /**
-     * Create ClientHttpRequestFactory with configured timeouts
+     * Client for remote pipeline stages, with one RestClient per remote instance
      */
-    private ClientHttpRequestFactory clientHttpRequestFactory() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+    @Bean
+    public PipelineClient pipelineClient(RestClient.Builder builder, ChainPipeline chainPipeline,
+                                         Executor asyncRestClientExecutor, MeterRegistry meterRegistry,
+                                         ChainTraceRecorder chainTraceRecorder, RequestDeadlines requestDeadlines) {
+        Map<String, RestClient> restClients = new LinkedHashMap<>();
+        for (String url : chainPipeline.getRemoteUrls()) {
+            log.info("Creating RestClient for pipeline stages at {}, transport: {}, maxConnections: {}",
+                    url, transport, pipelineMaxConnections);
+
+            restClients.put(url, buildRestClient(builder.clone(), "Pipeline " + url, url, url,
+                    pipelineMaxConnections, meterRegistry, chainTraceRecorder, requestDeadlines));
+        }
+        return new PipelineClient(restClients, asyncRestClientExecutor, wireFormat);
+    }
+
+    private RestClient buildRestClient(RestClient.Builder builder, String serviceName, String downstream,
+                                       String baseUrl, int maxConnections, MeterRegistry meterRegistry,
+                                       ChainTraceRecorder chainTraceRecorder, RequestDeadlines requestDeadlines) {
+        builder.baseUrl(baseUrl)
+                .requestInterceptor(loggingInterceptor(serviceName))
+                .requestInterceptor(chainTraceRecorder.clientInterceptor())
+                .requestInterceptor(requestDeadlines.clientInterceptor());
+
+        switch (transport) {
+            case APACHE -> builder.requestFactory(
+                    apacheRequestFactory(downstream, maxConnections, meterRegistry, requestDeadlines));
+            case JDK -> {
+                // The JDK client has no per-client pool limit, so cap concurrent exchanges instead
+                ConnectionLimitInterceptor limit =
+                        new ConnectionLimitInterceptor(serviceName, maxConnections, connectTimeout);
+                registerPoolGauges(meterRegistry, downstream, limit::getLeased, null,
+                        limit::getPending, limit::getMaxConnections);
+                builder.requestFactory(jdkRequestFactory(requestDeadlines))
+                        .requestInterceptor(limit);
+            }
+            default -> builder.requestFactory(clientHttpRequestFactory(requestDeadlines));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Create ClientHttpRequestFactory with configured timeouts, the read timeout cut to the request deadline
+     */
+    private ClientHttpRequestFactory clientHttpRequestFactory(RequestDeadlines requestDeadlines) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory() {
+            @Override
+            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+                super.prepareConnection(connection, httpMethod);
+                connection.setReadTimeout(requestDeadlines.timeoutMillis(readTimeout));
+            }
+        };
         factory.setConnectTimeout(Duration.ofMillis(connectTimeout));
         factory.setReadTimeout(Duration.ofMillis(readTimeout));
         return factory;
     }
 
+    /**
+     * Create a JDK HttpClient based factory using HTTP/1.1 keep-alive or h2c
+     *
+     * The JDK client only exposes idle eviction as JVM-wide system properties, which
+     * JdkHttpClientProperties sets at startup. The read timeout is set on each request,
+     * cut to the request deadline.
+     */
+    private ClientHttpRequestFactory jdkRequestFactory(RequestDeadlines requestDeadlines) {
+        boolean h2c = "h2c".equalsIgnoreCase(httpVersion);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(h2c ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+        openTransports.add(httpClient);
+
+        // The timeout is fixed per factory, so take a throwaway factory for each request;
+        // they share the client and the executor that streams request bodies
+        Executor bodyExecutor = httpClient.executor().orElseGet(SimpleAsyncTaskExecutor::new);
+        return (uri, httpMethod) -> {
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient, bodyExecutor);
+            factory.setReadTimeout(Duration.ofMillis(requestDeadlines.timeoutMillis(readTimeout)));
+            return factory.createRequest(uri, httpMethod);
+        };
+    }
+
+    /**
+     * Create an Apache HttpClient 5 factory backed by a dedicated connection pool
+     *
+     * Calls made under a request deadline get their own request config with the response
+     * timeout cut to the remaining budget; other calls use the client defaults.
+     */
+    private ClientHttpRequestFactory apacheRequestFactory(String downstream, int maxConnections,
+                                                          MeterRegistry meterRegistry,
+                                                          RequestDeadlines requestDeadlines) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout))
+                .build();
+        openTransports.add(httpClient);
+
+        registerPoolGauges(meterRegistry, downstream,
+                () -> connectionManager.getTotalStats().getLeased(),
+                () -> connectionManager.getTotalStats().getAvailable(),
+                () -> connectionManager.getTotalStats().getPending(),
+                () -> connectionManager.getTotalStats().getMax());
+
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setHttpContextFactory((method, uri) -> {
+            Deadline deadline = requestDeadlines.current();
+            if (deadline == null) {
+                return null;
+            }
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeout))
+                    .setResponseTimeout(Timeout.ofMilliseconds(requestDeadlines.timeoutMillis(readTimeout)))
+                    .build());
+            return context;
+        });
+        return factory;
+    }
+
+    private void registerPoolGauges(MeterRegistry meterRegistry, String downstream,
+                                    Supplier<Number> leased, Supplier<Number> available,
+                                    Supplier<Number> pending, Supplier<Number> max) {
+        Tags tags = Tags.of("downstream", downstream, "transport", transport.name().toLowerCase());
+
+        Gauge.builder("http.client.pool.leased", leased)
+                .description("Connections currently in use")
+                .tags(tags)
+                .register(meterRegistry);
+        if (available != null) {
+            Gauge.builder("http.client.pool.available", available)
+                    .description("Idle connections kept alive in the pool")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("http.client.pool.pending", pending)
+                .description("Requests waiting for a connection")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("http.client.pool.max", max)
+                .description("Maximum connections to the downstream service")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
     /**
      * Logging interceptor for debugging API calls
      */
@@ -81,4 +291,11 @@ public class RestClientConfig {
             return response;
         };
     }
+
+    @Override
+    public void destroy() throws Exception {
+        for (AutoCloseable openTransport : openTransports) {
+            openTransport.close();
+        }
+    }
 }
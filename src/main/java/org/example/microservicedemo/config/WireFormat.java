@@ -0,0 +1,36 @@
+package org.example.microservicedemo.config;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Body encoding used on the internal Service B and Service C hops
+ * Selected with services.rest-client.wire-format; the internal controllers accept and
+ * answer in any of them, chosen by Content-Type and Accept
+ */
+public enum WireFormat {
+
+    /**
+     * Plain JSON (default, readable by any client)
+     */
+    JSON(MediaType.APPLICATION_JSON),
+
+    /**
+     * Jackson Smile: binary JSON with back-references for repeated names and strings
+     */
+    SMILE(new MediaType("application", "x-jackson-smile")),
+
+    /**
+     * CBOR (RFC 8949)
+     */
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    WireFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+}
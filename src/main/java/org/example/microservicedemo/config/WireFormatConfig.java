@@ -0,0 +1,59 @@
+package org.example.microservicedemo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.example.microservicedemo.metrics.ChainMetrics;
+import org.example.microservicedemo.metrics.TimedCborHttpMessageConverter;
+import org.example.microservicedemo.metrics.TimedSmileHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration for the binary wire formats of the internal hops
+ *
+ * Spring Boot places these converters right after the JSON one, so JSON is still what a
+ * client gets unless it asks for Smile or CBOR in its Accept header. Like the JSON
+ * converter they record the serialize and deserialize hops.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    /**
+     * Smile converter for internal hops (application/x-jackson-smile)
+     *
+     * Shared string values are enabled so the applicationName and service names repeated in
+     * every chain link are written once per message and back-referenced afterwards.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter timedSmileHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder, ChainMetrics chainMetrics) {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+
+        return new TimedSmileHttpMessageConverter(binaryObjectMapper(builder.factory(factory)), chainMetrics);
+    }
+
+    /**
+     * CBOR converter for internal hops (application/cbor)
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter timedCborHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder, ChainMetrics chainMetrics) {
+        return new TimedCborHttpMessageConverter(binaryObjectMapper(builder.factory(new CBORFactory())), chainMetrics);
+    }
+
+    /**
+     * Same modules and features as the JSON ObjectMapper, except that timestamps are written
+     * as numbers rather than ISO-8601 strings
+     */
+    private ObjectMapper binaryObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+}
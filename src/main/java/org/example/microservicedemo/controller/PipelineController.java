@@ -0,0 +1,89 @@
+package org.example.microservicedemo.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.model.PipelineRequest;
+import org.example.microservicedemo.model.PipelineResponse;
+import org.example.microservicedemo.model.UpdateTemplateRequest;
+import org.example.microservicedemo.model.UpdateTemplateResponse;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.service.MessageService;
+import org.example.microservicedemo.service.PipelineService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pipeline Controller - Internal API
+ * Runs the stages of this instance for remote callers and exposes the stage layout
+ */
+@RestController
+@RequestMapping("/internal/pipeline")
+@RequiredArgsConstructor
+@Slf4j
+public class PipelineController {
+
+    private final PipelineService pipelineService;
+    private final MessageService messageService;
+    private final ChainPipeline chainPipeline;
+    private final RequestDeadlines requestDeadlines;
+
+    /**
+     * POST /internal/pipeline/execute - Run a segment of local stages in one pass
+     *
+     * @param request Stage names and the message so far
+     * @return Message after the stages with one chain link per stage
+     */
+    @PostMapping("/execute")
+    public ResponseEntity<PipelineResponse> execute(
+            @RequestBody @Validated PipelineRequest request,
+            @RequestHeader(value = "X-Internal-Request", required = false) String internalHeader) {
+
+        log.debug("Pipeline: Received internal request for stages {}", request.getStages());
+
+        requestDeadlines.check("pipeline");
+
+        return ResponseEntity.ok(pipelineService.executeStages(request));
+    }
+
+    /**
+     * GET /internal/pipeline/stages - Stages in pipeline order, grouped into segments
+     *
+     * @return One entry per segment with its location and stage names
+     */
+    @GetMapping("/stages")
+    public ResponseEntity<List<Map<String, Object>>> getStages() {
+        List<Map<String, Object>> segments = chainPipeline.getSegments().stream()
+                .map(segment -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("location", segment.isLocal() ? "local" : segment.url());
+                    entry.put("stages", segment.stageNames());
+                    return entry;
+                })
+                .toList();
+
+        return ResponseEntity.ok(segments);
+    }
+
+    /**
+     * PUT /internal/pipeline/stages/{name}/message - Update a local stage's template
+     *
+     * @param name    Stage name
+     * @param request New template
+     * @return Update confirmation
+     */
+    @PutMapping("/stages/{name}/message")
+    public ResponseEntity<UpdateTemplateResponse> updateStageTemplate(
+            @PathVariable String name,
+            @RequestBody @Validated UpdateTemplateRequest request) {
+
+        log.info("Received template update request for pipeline stage {}", name);
+
+        return ResponseEntity.ok(messageService.updateTemplate(name, request.getTemplate()));
+    }
+}
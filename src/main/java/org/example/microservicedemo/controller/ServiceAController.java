@@ -1,16 +1,27 @@
 package org.example.microservicedemo.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.model.BatchMessageRequest;
+import org.example.microservicedemo.model.BatchMessageResponse;
 import org.example.microservicedemo.model.MessageResponse;
 import org.example.microservicedemo.model.UpdateTemplateRequest;
 import org.example.microservicedemo.model.UpdateTemplateResponse;
+import org.example.microservicedemo.service.BatchMessageService;
 import org.example.microservicedemo.service.MessageService;
+import org.example.microservicedemo.service.StreamingBatchService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service A Controller - Client-facing API
  * Entry point for the message chain
@@ -23,26 +34,74 @@ import org.springframework.web.bind.annotation.*;
 public class ServiceAController {
 
     private final MessageService messageService;
+    private final BatchMessageService batchMessageService;
+    private final StreamingBatchService streamingBatchService;
 
     /**
      * GET /api/message - Main endpoint to get complete message chain
      *
+     * Runs on the async servlet path: the request thread is released while
+     * Service B and C are called, and the response is written on completion.
+     *
      * @param user Username to personalize the message (default: "guest")
      * @return Complete message with chain details
      */
     @GetMapping("/message")
-    public ResponseEntity<MessageResponse> getMessage(
+    public CompletableFuture<ResponseEntity<MessageResponse>> getMessage(
             @RequestParam(defaultValue = "guest")
             @Size(max = 50, message = "Query parameter 'user' must not exceed 50 characters")
             String user) {
 
-        log.info("Received request for user: {}", user);
+        log.debug("Received request for user: {}", user);
 
-        MessageResponse response = messageService.processServiceA(user);
+        return messageService.processServiceAAsync(user)
+                .thenApply(response -> {
+                    log.debug("Returning complete message chain to client");
+                    return ResponseEntity.ok(response);
+                });
+    }
 
-        log.info("Returning complete message chain to client");
+    /**
+     * POST /api/messages/batch - Generate messages for many users at once
+     *
+     * The whole batch costs one call to Service B and one to Service C. Invalid users are
+     * reported per item and do not fail the batch.
+     *
+     * @param request Users to generate messages for
+     * @return Per-user results in request order
+     */
+    @PostMapping("/messages/batch")
+    public CompletableFuture<ResponseEntity<BatchMessageResponse>> getMessages(
+            @RequestBody @Validated BatchMessageRequest request) {
 
-        return ResponseEntity.ok(response);
+        log.debug("Received batch request for {} users", request.getUsers().size());
+
+        return batchMessageService.processServiceABatchAsync(request.getUsers())
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * POST /api/messages/batch/stream - Generate messages for an unbounded batch as NDJSON
+     *
+     * The body ({"users": [...]} or a bare array) is read incrementally and each result is
+     * written as one line as soon as its chunk completes, so batches are not limited by
+     * batch.max-size. The stream runs on the request thread rather than the async path,
+     * so it is not cut off by the async request timeout.
+     *
+     * @param request Request whose body holds the users
+     * @param response Response the NDJSON lines are written to
+     */
+    @PostMapping(value = "/messages/batch/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamMessages(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        log.debug("Received streaming batch request");
+
+        // Reject a malformed body while the status can still be changed
+        JsonParser users = streamingBatchService.openUsers(request.getInputStream());
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        streamingBatchService.streamServiceABatch(users, response.getOutputStream());
     }
 
     /**
@@ -2,18 +2,27 @@ package org.example.microservicedemo.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.model.BatchRequest;
+import org.example.microservicedemo.model.BatchResponse;
+import org.example.microservicedemo.model.ChainDeltaRequest;
+import org.example.microservicedemo.model.ChainDeltaResponse;
 import org.example.microservicedemo.model.ServiceBRequest;
 import org.example.microservicedemo.model.ServiceBResponse;
 import org.example.microservicedemo.model.UpdateTemplateRequest;
 import org.example.microservicedemo.model.UpdateTemplateResponse;
+import org.example.microservicedemo.service.BatchMessageService;
 import org.example.microservicedemo.service.MessageService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service B Controller - Internal API
  * Called by Service A, appends message and calls Service C
+ * Requests whose deadline (X-Deadline-Remaining-Ms) has already passed get a 504 without doing any work
  */
 @RestController
 @RequestMapping("/internal/service-b")
@@ -22,25 +31,69 @@ import org.springframework.web.bind.annotation.*;
 public class ServiceBController {
 
     private final MessageService messageService;
+    private final BatchMessageService batchMessageService;
+    private final RequestDeadlines requestDeadlines;
 
     /**
      * POST /internal/service-b/append - Internal endpoint called by Service A
      *
+     * Runs on the async servlet path so no request thread waits on Service C.
+     *
      * @param request Contains current message from Service A
      * @return Combined message with Service B and C contributions
      */
     @PostMapping("/append")
-    public ResponseEntity<ServiceBResponse> appendMessage(
+    public CompletableFuture<ResponseEntity<ServiceBResponse>> appendMessage(
             @RequestBody @Validated ServiceBRequest request,
             @RequestHeader(value = "X-Internal-Request", required = false) String internalHeader) {
 
-        log.info("Service B: Received internal request");
+        log.debug("Service B: Received internal request");
 
-        ServiceBResponse response = messageService.processServiceB(request);
+        requestDeadlines.check("service-b");
 
-        log.info("Service B: Returning response to Service A");
+        return messageService.processServiceBAsync(request)
+                .thenApply(response -> {
+                    log.debug("Service B: Returning response to Service A");
+                    return ResponseEntity.ok(response);
+                });
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * POST /internal/service-b/delta - Delta protocol endpoint called by Service A
+     *
+     * @param request Template fingerprints already held by Service A
+     * @return Service B and C fragments, without template text Service A already holds
+     */
+    @PostMapping("/delta")
+    public CompletableFuture<ResponseEntity<ChainDeltaResponse>> appendDelta(
+            @RequestBody ChainDeltaRequest request,
+            @RequestHeader(value = "X-Internal-Request", required = false) String internalHeader) {
+
+        log.debug("Service B: Received internal delta request");
+
+        requestDeadlines.check("service-b");
+
+        return messageService.processServiceBDeltaAsync(request)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * POST /internal/service-b/append/batch - Internal batch endpoint called by Service A
+     *
+     * @param request Batch of current messages from Service A
+     * @return Per-item combined messages in request order
+     */
+    @PostMapping("/append/batch")
+    public CompletableFuture<ResponseEntity<BatchResponse<ServiceBResponse>>> appendMessages(
+            @RequestBody @Validated BatchRequest<ServiceBRequest> request,
+            @RequestHeader(value = "X-Internal-Request", required = false) String internalHeader) {
+
+        log.debug("Service B: Received internal batch request with {} items", request.getItems().size());
+
+        requestDeadlines.check("service-b");
+
+        return batchMessageService.processServiceBBatchAsync(request)
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
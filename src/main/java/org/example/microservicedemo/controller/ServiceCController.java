@@ -2,10 +2,16 @@ package org.example.microservicedemo.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.model.BatchRequest;
+import org.example.microservicedemo.model.BatchResponse;
+import org.example.microservicedemo.model.ChainDeltaRequest;
+import org.example.microservicedemo.model.ChainDeltaResponse;
 import org.example.microservicedemo.model.ServiceCRequest;
 import org.example.microservicedemo.model.ServiceCResponse;
 import org.example.microservicedemo.model.UpdateTemplateRequest;
 import org.example.microservicedemo.model.UpdateTemplateResponse;
+import org.example.microservicedemo.service.BatchMessageService;
 import org.example.microservicedemo.service.MessageService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -14,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 /**
  * Service C Controller - Internal API (Final Service)
  * Called by Service B, appends final message and returns
+ * Requests whose deadline (X-Deadline-Remaining-Ms) has already passed get a 504 without doing any work
  */
 @RestController
 @RequestMapping("/internal/service-c")
@@ -22,6 +29,8 @@ import org.springframework.web.bind.annotation.*;
 public class ServiceCController {
 
     private final MessageService messageService;
+    private final BatchMessageService batchMessageService;
+    private final RequestDeadlines requestDeadlines;
 
     /**
      * POST /internal/service-c/finalize - Internal endpoint called by Service B
@@ -34,11 +43,51 @@ public class ServiceCController {
             @RequestBody @Validated ServiceCRequest request,
             @RequestHeader(value = "X-Internal-Request", required = false) String internalHeader) {
 
-        log.info("Service C: Received internal request for finalization");
+        log.debug("Service C: Received internal request for finalization");
+
+        requestDeadlines.check("service-c");
 
         ServiceCResponse response = messageService.processServiceC(request);
 
-        log.info("Service C: Returning final message to Service B");
+        log.debug("Service C: Returning final message to Service B");
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /internal/service-c/delta - Delta protocol endpoint called by Service B
+     *
+     * @param request Template fingerprints already held by Service A
+     * @return Service C's fragment, without template text Service A already holds
+     */
+    @PostMapping("/delta")
+    public ResponseEntity<ChainDeltaResponse> finalizeDelta(
+            @RequestBody ChainDeltaRequest request,
+            @RequestHeader(value = "X-Internal-Request", required = false) String internalHeader) {
+
+        log.debug("Service C: Received internal delta request");
+
+        requestDeadlines.check("service-c");
+
+        return ResponseEntity.ok(messageService.processServiceCDelta(request));
+    }
+
+    /**
+     * POST /internal/service-c/finalize/batch - Internal batch endpoint called by Service B
+     *
+     * @param request Batch of combined messages from Service A and B
+     * @return Per-item final messages in request order
+     */
+    @PostMapping("/finalize/batch")
+    public ResponseEntity<BatchResponse<ServiceCResponse>> finalizeMessages(
+            @RequestBody @Validated BatchRequest<ServiceCRequest> request,
+            @RequestHeader(value = "X-Internal-Request", required = false) String internalHeader) {
+
+        log.debug("Service C: Received internal batch request with {} items", request.getItems().size());
+
+        requestDeadlines.check("service-c");
+
+        BatchResponse<ServiceCResponse> response = batchMessageService.processServiceCBatch(request);
 
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,30 @@
+package org.example.microservicedemo.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instant by which a request must be answered, on the System.nanoTime() clock
+ *
+ * @param nanos System.nanoTime() value at which the deadline passes
+ */
+public record Deadline(long nanos) {
+
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    public long remainingNanos() {
+        return nanos - System.nanoTime();
+    }
+
+    /**
+     * @return Whole milliseconds left, 0 once the deadline has passed
+     */
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remainingNanos()));
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.microservicedemo.deadline;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Attaches the deadline of /api and /internal requests to the request thread
+ *
+ * Client requests take theirs from X-Request-Timeout-Ms, and GET /api/message falls back
+ * to the default timeout; other client requests without the header have no deadline.
+ * Internal requests adopt the budget their caller sent in X-Deadline-Remaining-Ms.
+ * Does nothing unless services.deadline.enabled is set.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final RequestDeadlines deadlines;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!deadlines.isEnabled()) {
+            return true;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") && !path.startsWith("/internal/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        Deadline deadline;
+        if (path.startsWith("/internal/")) {
+            deadline = deadlines.fromHeader(request.getHeader(RequestDeadlines.REMAINING_HEADER));
+        } else {
+            deadline = deadlines.fromHeader(request.getHeader(RequestDeadlines.TIMEOUT_HEADER));
+            if (deadline == null && "GET".equals(request.getMethod()) && path.equals("/api/message")) {
+                deadline = deadlines.withDefaultTimeout();
+            }
+        }
+
+        if (deadline == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Deadline previous = deadlines.attach(deadline);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            deadlines.restore(previous);
+        }
+    }
+}
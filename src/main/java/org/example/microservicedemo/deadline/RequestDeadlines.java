@@ -0,0 +1,237 @@
+package org.example.microservicedemo.deadline;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.exception.DeadlineExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deadline of the request running on the current thread, and its propagation along the chain
+ *
+ * Service A gives each request a time budget: the client's X-Request-Timeout-Ms, or
+ * default-timeout for GET /api/message. Budgets from headers are capped at max-timeout,
+ * and neither exceeds spring.mvc.async.request-timeout, after which the servlet container
+ * gives up on the request anyway. The deadline is held in a thread local while the
+ * request runs and carried to async executor tasks. Every internal hop sends the budget
+ * that is left in X-Deadline-Remaining-Ms, and the receiving instance adopts it as its own
+ * deadline. Relative budgets rather than absolute instants keep instances with skewed
+ * clocks consistent; time spent on the network is not deducted.
+ *
+ * Once the deadline has passed, work is abandoned instead of finished for a caller that
+ * has given up. Internal endpoints reject the request, downstream calls are not sent, and
+ * the read timeout of each call is cut to the remaining budget. The request fails with
+ * DeadlineExceededException, answered with 504, which upstream instances turn back into
+ * a DeadlineExceededException.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RequestDeadlines {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+    public static final String REMAINING_HEADER = "X-Deadline-Remaining-Ms";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${services.deadline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${services.deadline.default-timeout:10s}")
+    private Duration defaultTimeout;
+
+    @Value("${services.deadline.max-timeout:60s}")
+    private Duration maxTimeout;
+
+    @Value("${spring.mvc.async.request-timeout:#{null}}")
+    private Duration asyncRequestTimeout;
+
+    private final LongAdder exceeded = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        FunctionCounter.builder("chain.deadline.exceeded", exceeded, LongAdder::sum)
+                .description("Work abandoned because the request deadline had passed")
+                .register(meterRegistry);
+
+        if (asyncRequestTimeout != null && asyncRequestTimeout.isPositive()) {
+            if (maxTimeout.compareTo(asyncRequestTimeout) > 0) {
+                log.debug("Capping deadline max-timeout {} at the async request timeout {}",
+                        maxTimeout, asyncRequestTimeout);
+                maxTimeout = asyncRequestTimeout;
+            }
+            if (defaultTimeout.compareTo(asyncRequestTimeout) > 0) {
+                log.debug("Capping deadline default-timeout {} at the async request timeout {}",
+                        defaultTimeout, asyncRequestTimeout);
+                defaultTimeout = asyncRequestTimeout;
+            }
+        }
+
+        log.info("Request deadlines {} with defaultTimeout={}, maxTimeout={}", enabled ? "enabled" : "disabled",
+                defaultTimeout, maxTimeout);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Deadline from a budget header
+     *
+     * @param millis Header value; zero or negative gives a deadline that has already passed,
+     *               and values above max-timeout are capped to it
+     * @return Deadline, or null when the header is absent or malformed
+     */
+    public Deadline fromHeader(String millis) {
+        if (millis == null || millis.isEmpty()) {
+            return null;
+        }
+        try {
+            long budget = Math.min(Long.parseLong(millis.trim()), maxTimeout.toMillis());
+            return Deadline.after(budget, TimeUnit.MILLISECONDS);
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed deadline header: {}", millis);
+            return null;
+        }
+    }
+
+    /**
+     * Deadline for a client request that did not ask for a timeout
+     */
+    public Deadline withDefaultTimeout() {
+        return Deadline.after(defaultTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return Deadline of the request running on this thread, or null
+     */
+    public Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Make deadline the current deadline of this thread
+     *
+     * @return The previous deadline, to pass to restore
+     */
+    public Deadline attach(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        return previous;
+    }
+
+    public void restore(Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Refuse to start work for a request whose deadline has passed
+     *
+     * @param stage Work about to start, reported in the error
+     * @throws DeadlineExceededException if the current deadline has passed
+     */
+    public void check(String stage) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw exceeded(stage);
+        }
+    }
+
+    /**
+     * Read timeout for a downstream call: the configured timeout, cut to the remaining budget
+     */
+    public int timeoutMillis(int configuredMillis) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return configuredMillis;
+        }
+        long remaining = Math.max(1, deadline.remainingMillis());
+        return (int) (configuredMillis > 0 ? Math.min(configuredMillis, remaining) : remaining);
+    }
+
+    /**
+     * Carry the current deadline of the submitting thread to an executor task
+     */
+    public TaskDecorator taskDecorator() {
+        return task -> {
+            Deadline deadline = CURRENT.get();
+            if (deadline == null) {
+                return task;
+            }
+            return () -> {
+                Deadline previous = attach(deadline);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            };
+        };
+    }
+
+    /**
+     * Send the remaining budget downstream, and do not send calls that can no longer finish in time
+     */
+    public ClientHttpRequestInterceptor clientInterceptor() {
+        return (request, body, execution) -> {
+            Deadline deadline = CURRENT.get();
+            if (deadline == null) {
+                return execution.execute(request, body);
+            }
+
+            long remaining = deadline.remainingMillis();
+            if (remaining <= 0) {
+                throw exceeded(request.getURI().getPath());
+            }
+            request.getHeaders().set(REMAINING_HEADER, Long.toString(remaining));
+
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                // A read timeout cut short by the deadline
+                if (deadline.isExpired()) {
+                    throw exceeded(request.getURI().getPath());
+                }
+                throw e;
+            }
+
+            // The downstream instance ran out of the budget it was given
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.GATEWAY_TIMEOUT)) {
+                response.close();
+                throw exceeded(request.getURI().getPath());
+            }
+            return response;
+        };
+    }
+
+    private DeadlineExceededException exceeded(String stage) {
+        exceeded.increment();
+        return new DeadlineExceededException(stage);
+    }
+
+    /**
+     * @return Work abandoned since startup because its deadline had passed
+     */
+    public long getExceeded() {
+        return exceeded.sum();
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.microservicedemo.exception;
+
+/**
+ * Exception thrown when a call is refused because the downstream's circuit breaker is open
+ *
+ * A ServiceCommunicationException, so callers handle it like any other downstream failure.
+ */
+public class CircuitBreakerOpenException extends ServiceCommunicationException {
+
+    public CircuitBreakerOpenException(String serviceName) {
+        super("Circuit breaker for " + serviceName + " is open, failing fast");
+    }
+}
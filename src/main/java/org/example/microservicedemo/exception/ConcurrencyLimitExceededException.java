@@ -0,0 +1,20 @@
+package org.example.microservicedemo.exception;
+
+/**
+ * Exception thrown when a request is rejected by the adaptive concurrency limit
+ *
+ * Thrown on the hot path under overload, so no stack trace is captured.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final int limit;
+
+    public ConcurrencyLimitExceededException(int limit) {
+        super("Concurrency limit of " + limit + " in-flight requests reached", null, false, false);
+        this.limit = limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.microservicedemo.exception;
+
+/**
+ * Exception thrown when a request's deadline passes before its work is done
+ *
+ * Raised in bulk during incidents, so no stack trace is captured.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+
+    /**
+     * @param stage Work that was abandoned, e.g. service-b or a downstream URL
+     */
+    public DeadlineExceededException(String stage) {
+        super("Request deadline exceeded at " + stage, null, false, false);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.microservicedemo.exception;
+
+/**
+ * Exception thrown when a user exceeds their request rate limit
+ *
+ * Thrown on the hot path for abusive clients, so no stack trace is captured.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public RateLimitExceededException(int retryAfterSeconds) {
+        super("Request rate limit exceeded, retry in " + retryAfterSeconds + "s", null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.microservicedemo.exception;
+
+/**
+ * Exception thrown when a delta fragment names a template Service A no longer holds
+ *
+ * A ServiceCommunicationException, so it is answered like any other downstream failure
+ * once asking for every template again has not helped.
+ */
+public class UnknownTemplateException extends ServiceCommunicationException {
+
+    public UnknownTemplateException(String fingerprint, String service) {
+        super("Unknown template " + fingerprint + " from " + service);
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.microservicedemo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-hop latency timers for the message chain
+ *
+ * Every hop is recorded as chain.hop.duration{hop, mode} with a percentile histogram, so
+ * tail latency can be aggregated across instances, plus p50/p90/p99 computed locally.
+ * Mode is how the services talk to each other: in-process, sync or async.
+ * Hops of sampled requests are also added to their chain trace.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChainMetrics {
+
+    public static final String HOP_A_TOTAL = "a-total";
+    public static final String HOP_B_CALL = "b-call";
+    public static final String HOP_C_CALL = "c-call";
+    public static final String HOP_SERIALIZE = "serialize";
+    public static final String HOP_DESERIALIZE = "deserialize";
+    public static final String HOP_PIPELINE_CALL = "pipeline-call";
+
+    private static final String[] HOPS = {
+            HOP_A_TOTAL, HOP_B_CALL, HOP_C_CALL, HOP_SERIALIZE, HOP_DESERIALIZE, HOP_PIPELINE_CALL
+    };
+
+    private final MeterRegistry meterRegistry;
+    private final ChainTraceRecorder traceRecorder;
+
+    @Value("${services.use-rest-client:true}")
+    private boolean useRestClient;
+
+    @Value("${services.use-async:true}")
+    private boolean useAsync;
+
+    private String mode;
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        mode = !useRestClient ? "in-process" : useAsync ? "async" : "sync";
+
+        for (String hop : HOPS) {
+            timers.put(hop, Timer.builder("chain.hop.duration")
+                    .description("Latency of one hop of the message chain")
+                    .tag("hop", hop)
+                    .tag("mode", mode)
+                    .publishPercentileHistogram()
+                    .publishPercentiles(0.5, 0.9, 0.99)
+                    .register(meterRegistry));
+        }
+
+        log.info("Chain metrics registered for mode={}", mode);
+    }
+
+    /**
+     * @return Inter-service communication mode: in-process, sync or async
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    /**
+     * Record a hop that started at startNanos (from System.nanoTime()) and ends now
+     */
+    public void record(String hop, long startNanos) {
+        record(hop, startNanos, -1);
+    }
+
+    /**
+     * Record a hop that processed a body of size bytes (-1 if unknown)
+     */
+    public void record(String hop, long startNanos, long size) {
+        long duration = System.nanoTime() - startNanos;
+        timers.get(hop).record(duration, TimeUnit.NANOSECONDS);
+        traceRecorder.recordHop(hop, duration, size);
+    }
+
+    /**
+     * Time a synchronous hop, including one that throws
+     */
+    public <T> T time(String hop, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            record(hop, start);
+        }
+    }
+
+    /**
+     * Time an asynchronous hop until its future completes, successfully or not
+     */
+    public <T> CompletableFuture<T> timeAsync(String hop, Supplier<CompletableFuture<T>> step) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = step.get();
+        } catch (RuntimeException e) {
+            record(hop, start);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> record(hop, start));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.microservicedemo.metrics;
+
+import org.springframework.http.HttpInputMessage;
+
+import java.io.IOException;
+
+/**
+ * Serialize and deserialize timing shared by the timed Jackson converters
+ *
+ * Each converter has to extend the Spring converter it replaces, so Spring Boot keeps
+ * it in that converter's place; the timing itself lives here once.
+ */
+final class ConverterTiming {
+
+    private ConverterTiming() {
+    }
+
+    @FunctionalInterface
+    interface Read {
+        Object read() throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Write {
+        void write() throws IOException;
+    }
+
+    /**
+     * Run read as the deserialize hop, sized by the request's Content-Length when known
+     */
+    static Object read(ChainMetrics chainMetrics, HttpInputMessage inputMessage, Read read)
+            throws IOException {
+        long start = System.nanoTime();
+        try {
+            return read.read();
+        } finally {
+            chainMetrics.record(ChainMetrics.HOP_DESERIALIZE, start, inputMessage.getHeaders().getContentLength());
+        }
+    }
+
+    /**
+     * Run write as the serialize hop
+     */
+    static void write(ChainMetrics chainMetrics, Write write) throws IOException {
+        long start = System.nanoTime();
+        try {
+            write.write();
+        } finally {
+            chainMetrics.record(ChainMetrics.HOP_SERIALIZE, start);
+        }
+    }
+}
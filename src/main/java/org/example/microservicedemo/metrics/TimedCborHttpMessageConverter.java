@@ -0,0 +1,39 @@
+package org.example.microservicedemo.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * CBOR converter recording the serialize and deserialize hops
+ *
+ * Takes the place of Spring's default CBOR converter, so binary internal hops are timed
+ * the same way as JSON ones (see TimedJacksonHttpMessageConverter).
+ */
+public class TimedCborHttpMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+    private final ChainMetrics chainMetrics;
+
+    public TimedCborHttpMessageConverter(ObjectMapper objectMapper, ChainMetrics chainMetrics) {
+        super(objectMapper);
+        this.chainMetrics = chainMetrics;
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return ConverterTiming.read(chainMetrics, inputMessage, () -> super.read(type, contextClass, inputMessage));
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        ConverterTiming.write(chainMetrics, () -> super.writeInternal(object, type, outputMessage));
+    }
+}
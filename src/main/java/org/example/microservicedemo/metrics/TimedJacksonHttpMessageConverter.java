@@ -0,0 +1,40 @@
+package org.example.microservicedemo.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Jackson converter recording the serialize and deserialize hops
+ *
+ * Replaces Spring Boot's default JSON converter, so it covers controller responses and
+ * request bodies as well as RestClient calls between the services. Timings include
+ * reading from and writing to the underlying stream.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final ChainMetrics chainMetrics;
+
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, ChainMetrics chainMetrics) {
+        super(objectMapper);
+        this.chainMetrics = chainMetrics;
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return ConverterTiming.read(chainMetrics, inputMessage, () -> super.read(type, contextClass, inputMessage));
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        ConverterTiming.write(chainMetrics, () -> super.writeInternal(object, type, outputMessage));
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.microservicedemo.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Smile converter recording the serialize and deserialize hops
+ *
+ * Takes the place of Spring's default Smile converter, so binary internal hops are timed
+ * the same way as JSON ones (see TimedJacksonHttpMessageConverter).
+ */
+public class TimedSmileHttpMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+    private final ChainMetrics chainMetrics;
+
+    public TimedSmileHttpMessageConverter(ObjectMapper objectMapper, ChainMetrics chainMetrics) {
+        super(objectMapper);
+        this.chainMetrics = chainMetrics;
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return ConverterTiming.read(chainMetrics, inputMessage, () -> super.read(type, contextClass, inputMessage));
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        ConverterTiming.write(chainMetrics, () -> super.writeInternal(object, type, outputMessage));
+    }
+}
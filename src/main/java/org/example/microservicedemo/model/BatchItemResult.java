@@ -0,0 +1,29 @@
+package org.example.microservicedemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single item in a batch: either a result or an error
+ *
+ * @param <T> Result type
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult<T> {
+    private Integer index;
+    private T result;
+    private ErrorResponse error;
+
+    public static <T> BatchItemResult<T> success(int index, T result) {
+        return new BatchItemResult<>(index, result, null);
+    }
+
+    public static <T> BatchItemResult<T> failure(int index, ErrorResponse error) {
+        return new BatchItemResult<>(index, null, error);
+    }
+}
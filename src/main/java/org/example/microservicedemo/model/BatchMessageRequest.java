@@ -0,0 +1,21 @@
+package org.example.microservicedemo.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request for the client-facing POST /api/messages/batch endpoint
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchMessageRequest {
+    @NotEmpty(message = "users must contain at least one user")
+    private List<String> users;
+}
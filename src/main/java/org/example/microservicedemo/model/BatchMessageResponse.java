@@ -0,0 +1,25 @@
+package org.example.microservicedemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response for the client-facing POST /api/messages/batch endpoint
+ * Results are in request order; failed items carry an error instead of a result
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchMessageResponse {
+    private String applicationName;
+    private List<BatchItemResult<MessageResponse>> results;
+    private Integer total;
+    private Integer succeeded;
+    private Integer failed;
+    private Long processingTimeMs;
+}
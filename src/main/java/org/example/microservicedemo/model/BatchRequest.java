@@ -0,0 +1,24 @@
+package org.example.microservicedemo.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request model for the internal batch APIs of Service B and C
+ * Items are validated individually so one invalid item does not fail the batch
+ *
+ * @param <T> Item request type
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest<T> {
+    @NotNull(message = "items is required")
+    private List<T> items;
+}
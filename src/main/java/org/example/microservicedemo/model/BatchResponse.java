@@ -0,0 +1,23 @@
+package org.example.microservicedemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for the internal batch APIs of Service B and C
+ * Results are in request order
+ *
+ * @param <T> Item response type
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse<T> {
+    private String applicationName;
+    private List<BatchItemResult<T>> results;
+}
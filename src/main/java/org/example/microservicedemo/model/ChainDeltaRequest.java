@@ -0,0 +1,21 @@
+package org.example.microservicedemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Request model for the delta protocol of Service B and C internal APIs
+ * Carries no message, only the template fingerprints the caller already holds by service
+ * name, so each hop can leave out template text the caller has seen before
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainDeltaRequest {
+    private Map<String, String> knownTemplates;
+}
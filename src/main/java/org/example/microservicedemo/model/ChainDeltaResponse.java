@@ -0,0 +1,20 @@
+package org.example.microservicedemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for the delta protocol of Service B and C internal APIs
+ * Fragments are in chain order: the answering service first, then those downstream of it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainDeltaResponse {
+    private List<ChainFragment> fragments;
+}
@@ -0,0 +1,25 @@
+package org.example.microservicedemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One service's part of the chain in the delta protocol
+ * template is only set when the caller did not already hold templateFingerprint; the
+ * caller renders the message and derives the contribution from the template itself
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainFragment {
+    private String service;
+    private String applicationName;
+    private String templateFingerprint;
+    private String template;
+    private Instant timestamp;
+}
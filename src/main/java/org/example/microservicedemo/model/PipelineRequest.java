@@ -0,0 +1,25 @@
+package org.example.microservicedemo.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request model for the internal pipeline API
+ * message is the output of the previous stage, or null when stages start the pipeline,
+ * in which case the first stage renders the user
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineRequest {
+    @NotEmpty(message = "stages is required")
+    private List<String> stages;
+    private String user;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package org.example.microservicedemo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for the internal pipeline API
+ * Holds the message after the requested stages and one chain link per stage
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineResponse {
+    private String message;
+    private List<ChainLink> chain;
+}
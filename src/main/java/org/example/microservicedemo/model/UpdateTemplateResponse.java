@@ -20,4 +20,8 @@ public class UpdateTemplateResponse {
     private String template;
     private Instant updatedAt;
     private String message;
+
+    // Template store version after the update, or the service's local template version
+    // when the store is disabled
+    private Long version;
 }
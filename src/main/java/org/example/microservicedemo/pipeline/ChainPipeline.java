@@ -0,0 +1,180 @@
+package org.example.microservicedemo.pipeline;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.config.PipelineConfig;
+import org.example.microservicedemo.template.CompiledTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Registry of chain stages and the fused segments they run in
+ *
+ * Holds the stages declared under pipeline.stages, plus service-a, service-b and
+ * service-c backed by the classic templates, so every template can be looked up by
+ * name. When no stages are declared the pipeline consists of the three classic stages.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChainPipeline {
+
+    private final PipelineConfig pipelineConfig;
+    private final MessageTemplateConfig templateConfig;
+
+    private final Map<String, PipelineStage> stagesByName = new LinkedHashMap<>();
+    private List<PipelineStage> stages;
+    private List<PipelineSegment> segments;
+    private List<MessageTemplateConfig.ServiceTemplate> templates;
+
+    @PostConstruct
+    void init() {
+        List<PipelineStage> classic = List.of(
+                new PipelineStage("service-a", templateConfig.getServiceA(), CompiledTemplate.USER, null),
+                new PipelineStage("service-b", templateConfig.getServiceB(), CompiledTemplate.PREVIOUS_MESSAGE, null),
+                new PipelineStage("service-c", templateConfig.getServiceC(), CompiledTemplate.PREVIOUS_MESSAGE, null));
+        classic.forEach(stage -> stagesByName.put(stage.getName(), stage));
+
+        List<PipelineStage> declared = new ArrayList<>();
+        for (PipelineConfig.StageDefinition definition : pipelineConfig.getStages()) {
+            PipelineStage stage = toStage(definition, declared.isEmpty());
+            if (declared.stream().anyMatch(other -> other.getName().equals(stage.getName()))) {
+                throw new IllegalStateException("Duplicate pipeline stage: " + stage.getName());
+            }
+            stagesByName.put(stage.getName(), stage);
+            declared.add(stage);
+        }
+
+        stages = declared.isEmpty() ? classic : Collections.unmodifiableList(declared);
+        segments = fuse(stages);
+        // Declared stages may share a classic template, so count each template once
+        Map<MessageTemplateConfig.ServiceTemplate, Boolean> distinct = new IdentityHashMap<>();
+        stagesByName.values().forEach(stage -> distinct.put(stage.getTemplate(), Boolean.TRUE));
+        templates = List.copyOf(distinct.keySet());
+
+        log.info("Chain pipeline with {} stages in {} segments: {}", stages.size(), segments.size(),
+                segments.stream().map(segment -> (segment.isLocal() ? "local" : segment.url()) + segment.stageNames())
+                        .toList());
+    }
+
+    private PipelineStage toStage(PipelineConfig.StageDefinition definition, boolean head) {
+        if (!StringUtils.hasText(definition.getName())) {
+            throw new IllegalStateException("Pipeline stage without a name");
+        }
+        String name = definition.getName().toLowerCase();
+        String url = StringUtils.hasText(definition.getUrl()) ? definition.getUrl() : null;
+
+        MessageTemplateConfig.ServiceTemplate template;
+        PipelineStage classic = stagesByName.get(name);
+        if (classic != null && definition.getTemplate() == null) {
+            // Reuse a classic template, so /api/service-x/message updates it too
+            template = classic.getTemplate();
+        } else {
+            if (url == null && definition.getTemplate() == null) {
+                throw new IllegalStateException("Local pipeline stage " + name + " needs a template");
+            }
+            template = new MessageTemplateConfig.ServiceTemplate();
+            template.setServiceName(name);
+            template.setTemplate(definition.getTemplate());
+        }
+
+        String placeholder = StringUtils.hasText(definition.getPlaceholder()) ? definition.getPlaceholder()
+                : head ? CompiledTemplate.USER : CompiledTemplate.PREVIOUS_MESSAGE;
+        return new PipelineStage(name, template, placeholder, url);
+    }
+
+    /**
+     * Group adjacent stages with the same location into segments
+     */
+    static List<PipelineSegment> fuse(List<PipelineStage> stages) {
+        List<PipelineSegment> segments = new ArrayList<>();
+        List<PipelineStage> current = new ArrayList<>();
+        for (PipelineStage stage : stages) {
+            if (!current.isEmpty() && !Objects.equals(current.get(0).getUrl(), stage.getUrl())) {
+                segments.add(new PipelineSegment(current.get(0).getUrl(), List.copyOf(current)));
+                current.clear();
+            }
+            current.add(stage);
+        }
+        if (!current.isEmpty()) {
+            segments.add(new PipelineSegment(current.get(0).getUrl(), List.copyOf(current)));
+        }
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * @return true if stages are declared under pipeline.stages
+     */
+    public boolean isConfigured() {
+        return !pipelineConfig.getStages().isEmpty();
+    }
+
+    public List<PipelineStage> getStages() {
+        return stages;
+    }
+
+    public List<PipelineSegment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Version of all templates held by this instance, classic and declared stages alike
+     *
+     * The sum of the template versions: each only ever grows, so any template change gives
+     * a new value. Like each version, it moves on only after the new template is visible.
+     */
+    public long getTemplateVersion() {
+        long version = 0;
+        for (MessageTemplateConfig.ServiceTemplate template : templates) {
+            version += template.getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * Distinct base URLs of remote stages
+     */
+    public List<String> getRemoteUrls() {
+        return stages.stream()
+                .map(PipelineStage::getUrl)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Look up any stage by name, including the classic services
+     *
+     * @throws IllegalArgumentException if no stage has that name
+     */
+    public PipelineStage getStage(String name) {
+        PipelineStage stage = stagesByName.get(name.toLowerCase());
+        if (stage == null) {
+            throw new IllegalArgumentException("Unknown service: " + name);
+        }
+        return stage;
+    }
+
+    /**
+     * Look up a stage this instance can render
+     *
+     * @throws IllegalArgumentException if no stage has that name or it runs elsewhere
+     */
+    public PipelineStage getLocalStage(String name) {
+        PipelineStage stage = getStage(name);
+        if (!stage.isLocal()) {
+            throw new IllegalArgumentException("Stage " + name + " does not run on this instance");
+        }
+        return stage;
+    }
+}
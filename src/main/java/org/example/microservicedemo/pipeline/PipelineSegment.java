@@ -0,0 +1,23 @@
+package org.example.microservicedemo.pipeline;
+
+import java.util.List;
+
+/**
+ * Maximal run of adjacent stages sharing a location
+ *
+ * A local segment is rendered in one in-process pass; a remote segment is one call to
+ * its instance, which renders all of its stages in one pass there.
+ *
+ * @param url    Base URL of the instance running the stages, or null when local
+ * @param stages Stages in pipeline order
+ */
+public record PipelineSegment(String url, List<PipelineStage> stages) {
+
+    public boolean isLocal() {
+        return url == null;
+    }
+
+    public List<String> stageNames() {
+        return stages.stream().map(PipelineStage::getName).toList();
+    }
+}
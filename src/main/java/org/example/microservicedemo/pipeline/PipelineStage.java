@@ -0,0 +1,84 @@
+package org.example.microservicedemo.pipeline;
+
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.template.CompiledTemplate;
+
+/**
+ * One stage of the chain pipeline: a template rendered with the message so far
+ *
+ * The template is a MessageTemplateConfig.ServiceTemplate, so stages support runtime
+ * updates and versioning exactly like the classic services.
+ */
+public final class PipelineStage {
+
+    private final String name;
+    private final MessageTemplateConfig.ServiceTemplate template;
+    private final String placeholder;
+    private final String url;
+
+    // Contribution of the current template, worked out once per template
+    private volatile Contribution contribution;
+
+    public PipelineStage(String name, MessageTemplateConfig.ServiceTemplate template, String placeholder, String url) {
+        this.name = name;
+        this.template = template;
+        this.placeholder = placeholder;
+        this.url = url;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public MessageTemplateConfig.ServiceTemplate getTemplate() {
+        return template;
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    /**
+     * @return Base URL of the instance running this stage, or null for a local stage
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    public boolean isLocal() {
+        return url == null;
+    }
+
+    /**
+     * Render this stage's template with its placeholder bound to the input
+     */
+    public String render(String input) {
+        return template.getCompiledTemplate().render(placeholder, input);
+    }
+
+    /**
+     * This stage's own part of the output
+     *
+     * The head stage turns the user into the first message, so all of its output is its
+     * contribution. Later stages contribute their template without the previous message.
+     */
+    public String contribution(String output, boolean head) {
+        if (head) {
+            return output;
+        }
+        CompiledTemplate compiled = template.getCompiledTemplate();
+        if (CompiledTemplate.PREVIOUS_MESSAGE.equals(placeholder)) {
+            return compiled.getContribution();
+        }
+
+        Contribution current = contribution;
+        if (current == null || current.template() != compiled) {
+            current = new Contribution(compiled, compiled.render(placeholder, "").trim());
+            contribution = current;
+        }
+        return current.text();
+    }
+
+    private record Contribution(CompiledTemplate template, String text) {
+    }
+}
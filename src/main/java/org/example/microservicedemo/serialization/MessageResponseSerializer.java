@@ -0,0 +1,286 @@
+package org.example.microservicedemo.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.InstantSerializer;
+import org.example.microservicedemo.model.ChainLink;
+import org.example.microservicedemo.model.MessageResponse;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Streaming serializer for MessageResponse with pre-encoded static fragments
+ *
+ * Writes the same properties in the same order as bean serialization, nulls included,
+ * without databind introspection. Field names, the application name, service names and
+ * every contribution after the first are template or configuration text, so they are
+ * kept as SerializedString, whose quoted UTF-8 bytes are encoded once and copied
+ * straight into the output. A contribution is cached per service and replaced when it
+ * differs, so a template update costs one miss. The first link's contribution and the
+ * message carry the user and are written as plain strings.
+ *
+ * Timestamps are the main allocation of bean serialization, as Instant.toString() builds
+ * a formatter context, a StringBuilder and a String for each. When the mapper uses the
+ * default ISO-8601 Instant format they are written from one char buffer per response
+ * instead; otherwise (numeric timestamps, a configured time zone or a custom Instant
+ * serializer) the mapper's own Instant serializer is used.
+ *
+ * Registered with @JsonComponent, so it applies to every ObjectMapper built from
+ * Spring Boot's Jackson2ObjectMapperBuilder, including the Smile and CBOR ones.
+ */
+@JsonComponent
+public class MessageResponseSerializer extends StdSerializer<MessageResponse> implements ContextualSerializer {
+
+    private static final SerializedString APPLICATION_NAME = new SerializedString("applicationName");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString CHAIN = new SerializedString("chain");
+    private static final SerializedString COMPLETE = new SerializedString("complete");
+    private static final SerializedString TOTAL_LENGTH = new SerializedString("totalLength");
+    private static final SerializedString PROCESSING_TIME_MS = new SerializedString("processingTimeMs");
+    private static final SerializedString SERVICE = new SerializedString("service");
+    private static final SerializedString CONTRIBUTION = new SerializedString("contribution");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+
+    // Bounds the caches in case names are not as static as expected
+    private static final int MAXIMUM_FRAGMENTS = 256;
+
+    // Last second written by the ISO fast path: 9999-12-31T23:59:59Z
+    private static final long MAXIMUM_ISO_SECOND = 253402300799L;
+
+    // Longest ISO instant written by the fast path: yyyy-MM-ddTHH:mm:ss.nnnnnnnnnZ
+    private static final int MAXIMUM_ISO_LENGTH = 30;
+
+    // Application and service names, shared by the contextual copies of each mapper
+    private final ConcurrentMap<String, SerializedString> names;
+
+    // Latest contribution per service
+    private final ConcurrentMap<String, SerializedString> contributions;
+
+    // The mapper's Instant serializer, resolved in createContextual
+    private final JsonSerializer<Object> instantSerializer;
+
+    public MessageResponseSerializer() {
+        super(MessageResponse.class);
+        this.names = new ConcurrentHashMap<>();
+        this.contributions = new ConcurrentHashMap<>();
+        this.instantSerializer = null;
+    }
+
+    private MessageResponseSerializer(MessageResponseSerializer base, JsonSerializer<Object> instantSerializer) {
+        super(MessageResponse.class);
+        this.names = base.names;
+        this.contributions = base.contributions;
+        this.instantSerializer = instantSerializer;
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+        JsonSerializer<Object> resolved = provider.findValueSerializer(Instant.class);
+        return resolved == instantSerializer ? this : new MessageResponseSerializer(this, resolved);
+    }
+
+    @Override
+    public void serialize(MessageResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+
+        gen.writeFieldName(APPLICATION_NAME);
+        writeName(gen, value.getApplicationName());
+
+        gen.writeFieldName(MESSAGE);
+        gen.writeString(value.getMessage());
+
+        gen.writeFieldName(CHAIN);
+        List<ChainLink> chain = value.getChain();
+        if (chain == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray(chain, chain.size());
+            char[] isoBuffer = isoInstantFastPath(provider) ? new char[MAXIMUM_ISO_LENGTH] : null;
+            for (int i = 0; i < chain.size(); i++) {
+                writeLink(gen, provider, chain.get(i), i == 0, isoBuffer);
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeFieldName(COMPLETE);
+        if (value.getComplete() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeBoolean(value.getComplete());
+        }
+
+        gen.writeFieldName(TOTAL_LENGTH);
+        if (value.getTotalLength() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.getTotalLength());
+        }
+
+        gen.writeFieldName(PROCESSING_TIME_MS);
+        if (value.getProcessingTimeMs() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.getProcessingTimeMs());
+        }
+
+        gen.writeEndObject();
+    }
+
+    private void writeLink(JsonGenerator gen, SerializerProvider provider, ChainLink link, boolean head,
+                           char[] isoBuffer) throws IOException {
+        if (link == null) {
+            gen.writeNull();
+            return;
+        }
+
+        gen.writeStartObject(link);
+
+        gen.writeFieldName(SERVICE);
+        writeName(gen, link.getService());
+
+        gen.writeFieldName(APPLICATION_NAME);
+        writeName(gen, link.getApplicationName());
+
+        gen.writeFieldName(CONTRIBUTION);
+        if (head || link.getService() == null || link.getContribution() == null) {
+            gen.writeString(link.getContribution());
+        } else {
+            writeContribution(gen, link.getService(), link.getContribution());
+        }
+
+        gen.writeFieldName(TIMESTAMP);
+        Instant timestamp = link.getTimestamp();
+        if (timestamp == null) {
+            gen.writeNull();
+        } else if (isoBuffer != null && timestamp.getEpochSecond() >= 0
+                && timestamp.getEpochSecond() <= MAXIMUM_ISO_SECOND) {
+            gen.writeString(isoBuffer, 0, formatIsoInstant(timestamp, isoBuffer));
+        } else {
+            instantSerializer().serialize(timestamp, gen, provider);
+        }
+
+        gen.writeEndObject();
+    }
+
+    private JsonSerializer<Object> instantSerializer() {
+        if (instantSerializer == null) {
+            // Only reachable when serialize is called without contextualization
+            throw new IllegalStateException("MessageResponseSerializer used without createContextual");
+        }
+        return instantSerializer;
+    }
+
+    /**
+     * True when the mapper would write Instants exactly as Instant.toString()
+     */
+    private boolean isoInstantFastPath(SerializerProvider provider) {
+        return (Object) instantSerializer == InstantSerializer.INSTANCE
+                && !provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                && !provider.getConfig().hasExplicitTimeZone();
+    }
+
+    /**
+     * Format an Instant between 1970 and 9999 like Instant.toString()
+     *
+     * Fractions are written in groups of three digits, as DateTimeFormatter.ISO_INSTANT does.
+     *
+     * @return Number of chars written
+     */
+    static int formatIsoInstant(Instant instant, char[] buffer) {
+        long epochSecond = instant.getEpochSecond();
+        long epochDay = epochSecond / 86400;
+        int secondOfDay = (int) (epochSecond % 86400);
+
+        // Days to civil date, as in LocalDate.ofEpochDay
+        long zeroDay = epochDay + 719528 - 60;
+        long yearEstimate = (400 * zeroDay + 591) / 146097;
+        long dayOfYearEstimate = zeroDay - (365 * yearEstimate + yearEstimate / 4 - yearEstimate / 100
+                + yearEstimate / 400);
+        if (dayOfYearEstimate < 0) {
+            yearEstimate--;
+            dayOfYearEstimate = zeroDay - (365 * yearEstimate + yearEstimate / 4 - yearEstimate / 100
+                    + yearEstimate / 400);
+        }
+        int marchDayOfYear = (int) dayOfYearEstimate;
+        int marchMonth = (marchDayOfYear * 5 + 2) / 153;
+        int month = (marchMonth + 2) % 12 + 1;
+        int day = marchDayOfYear - (marchMonth * 306 + 5) / 10 + 1;
+        int year = (int) (yearEstimate + marchMonth / 10);
+
+        int pos = 0;
+        pos = digits(buffer, pos, year, 4);
+        buffer[pos++] = '-';
+        pos = digits(buffer, pos, month, 2);
+        buffer[pos++] = '-';
+        pos = digits(buffer, pos, day, 2);
+        buffer[pos++] = 'T';
+        pos = digits(buffer, pos, secondOfDay / 3600, 2);
+        buffer[pos++] = ':';
+        pos = digits(buffer, pos, secondOfDay / 60 % 60, 2);
+        buffer[pos++] = ':';
+        pos = digits(buffer, pos, secondOfDay % 60, 2);
+
+        int nano = instant.getNano();
+        if (nano > 0) {
+            buffer[pos++] = '.';
+            if (nano % 1_000_000 == 0) {
+                pos = digits(buffer, pos, nano / 1_000_000, 3);
+            } else if (nano % 1000 == 0) {
+                pos = digits(buffer, pos, nano / 1000, 6);
+            } else {
+                pos = digits(buffer, pos, nano, 9);
+            }
+        }
+        buffer[pos++] = 'Z';
+        return pos;
+    }
+
+    private static int digits(char[] buffer, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    private void writeName(JsonGenerator gen, String name) throws IOException {
+        if (name == null) {
+            gen.writeNull();
+            return;
+        }
+
+        SerializedString serialized = names.get(name);
+        if (serialized == null) {
+            if (names.size() >= MAXIMUM_FRAGMENTS) {
+                gen.writeString(name);
+                return;
+            }
+            serialized = names.computeIfAbsent(name, SerializedString::new);
+        }
+        gen.writeString(serialized);
+    }
+
+    private void writeContribution(JsonGenerator gen, String service, String contribution) throws IOException {
+        SerializedString serialized = contributions.get(service);
+        if (serialized == null || !serialized.getValue().equals(contribution)) {
+            serialized = new SerializedString(contribution);
+            if (contributions.size() < MAXIMUM_FRAGMENTS || contributions.containsKey(service)) {
+                contributions.put(service, serialized);
+            }
+        }
+        gen.writeString(serialized);
+    }
+}
@@ -0,0 +1,325 @@
+package org.example.microservicedemo.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.client.DownstreamLocality;
+import org.example.microservicedemo.client.ServiceBClient;
+import org.example.microservicedemo.client.ServiceCClient;
+import org.example.microservicedemo.config.AppConfig;
+import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.example.microservicedemo.model.*;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.template.CompiledTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Service class handling batched message chains
+ *
+ * A batch of N users costs one call to Service B and one call to Service C instead of 2×N.
+ * Each hop validates items individually: invalid items are reported in place and only the
+ * valid ones are forwarded, so a bad item never fails the whole batch.
+ *
+ * When pipeline.stages is configured, each valid user runs through the pipeline as
+ * GET /api/message does, so both APIs return the same message; those batches are not
+ * collapsed into one call per hop.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchMessageService {
+
+    private static final int MAX_USER_LENGTH = 50;
+
+    private final MessageService messageService;
+    private final ServiceBClient serviceBClient;
+    private final ServiceCClient serviceCClient;
+    private final AppConfig appConfig;
+    private final Validator validator;
+    private final DownstreamLocality downstreamLocality;
+    private final ChainPipeline chainPipeline;
+    private final PipelineService pipelineService;
+
+    @Value("${services.use-rest-client:true}")
+    private boolean useRestClient;
+
+    @Value("${services.use-async:true}")
+    private boolean useAsync;
+
+    @Value("${services.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    /**
+     * Service A: Generate messages for a batch of users
+     */
+    public CompletableFuture<BatchMessageResponse> processServiceABatchAsync(List<String> users) {
+        if (users.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Batch size " + users.size() + " exceeds the maximum of " + maxBatchSize);
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        log.debug("Service A: Processing batch of {} users", users.size());
+
+        if (chainPipeline.isConfigured()) {
+            return processPipelineBatchAsync(startTime, users);
+        }
+
+        List<BatchItemResult<MessageResponse>> results = new ArrayList<>(users.size());
+        List<ChainLink> serviceALinks = new ArrayList<>(users.size());
+        List<Integer> forwarded = new ArrayList<>(users.size());
+        List<ServiceBRequest> serviceBRequests = new ArrayList<>(users.size());
+
+        for (int index = 0; index < users.size(); index++) {
+            String user = users.get(index);
+            String violation = validateUser(user);
+            if (violation != null) {
+                results.add(BatchItemResult.failure(index, invalidInput(violation, "service-a")));
+                serviceALinks.add(null);
+                continue;
+            }
+
+            ChainLink serviceALink = messageService.buildServiceALink(user);
+            results.add(null);
+            serviceALinks.add(serviceALink);
+            forwarded.add(index);
+            serviceBRequests.add(ServiceBRequest.builder()
+                    .currentMessage(serviceALink.getContribution())
+                    .build());
+        }
+
+        if (serviceBRequests.isEmpty()) {
+            return CompletableFuture.completedFuture(completeBatch(startTime, results));
+        }
+
+        return callServiceBBatch(new BatchRequest<>(serviceBRequests))
+                .thenApply(serviceBBatch -> {
+                    List<BatchItemResult<ServiceBResponse>> serviceBResults =
+                            checkedResults(serviceBBatch, forwarded.size(), "Service B");
+                    for (int i = 0; i < forwarded.size(); i++) {
+                        int index = forwarded.get(i);
+                        BatchItemResult<ServiceBResponse> serviceBResult = serviceBResults.get(i);
+                        results.set(index, serviceBResult.getError() != null
+                                ? BatchItemResult.failure(index, serviceBResult.getError())
+                                : BatchItemResult.success(index, messageService.completeServiceA(
+                                        startTime, serviceALinks.get(index), serviceBResult.getResult())));
+                    }
+                    return completeBatch(startTime, results);
+                });
+    }
+
+    /**
+     * Run the configured pipeline for each valid user of a batch
+     */
+    private CompletableFuture<BatchMessageResponse> processPipelineBatchAsync(long startTime, List<String> users) {
+        List<CompletableFuture<BatchItemResult<MessageResponse>>> items = new ArrayList<>(users.size());
+        for (int index = 0; index < users.size(); index++) {
+            int itemIndex = index;
+            String violation = validateUser(users.get(index));
+            if (violation != null) {
+                items.add(CompletableFuture.completedFuture(
+                        BatchItemResult.failure(index, invalidInput(violation, "service-a"))));
+                continue;
+            }
+
+            CompletableFuture<MessageResponse> execution;
+            try {
+                execution = pipelineService.executeAsync(users.get(index));
+            } catch (RuntimeException e) {
+                execution = CompletableFuture.failedFuture(e);
+            }
+            items.add(execution.handle((response, error) -> error != null
+                    ? BatchItemResult.failure(itemIndex, chainFailure(error))
+                    : BatchItemResult.success(itemIndex, response)));
+        }
+
+        return CompletableFuture.allOf(items.toArray(CompletableFuture[]::new))
+                .thenApply(done -> completeBatch(startTime, items.stream().map(CompletableFuture::join).toList()));
+    }
+
+    /**
+     * Service B: Append messages for a batch and forward valid items to Service C in one call
+     */
+    public CompletableFuture<BatchResponse<ServiceBResponse>> processServiceBBatchAsync(
+            BatchRequest<ServiceBRequest> request) {
+        List<ServiceBRequest> items = request.getItems();
+
+        log.debug("Service B: Processing batch of {} items", items.size());
+
+        List<BatchItemResult<ServiceBResponse>> results = new ArrayList<>(items.size());
+        List<Integer> forwarded = new ArrayList<>(items.size());
+        List<ServiceCRequest> serviceCRequests = new ArrayList<>(items.size());
+
+        CompiledTemplate serviceBTemplate = messageService.serviceBTemplate();
+        ChainLink serviceBLink = messageService.buildServiceBLink(serviceBTemplate);
+        for (int index = 0; index < items.size(); index++) {
+            String violation = validate(items.get(index));
+            if (violation != null) {
+                results.add(BatchItemResult.failure(index, invalidInput(violation, "service-b")));
+                continue;
+            }
+
+            results.add(null);
+            forwarded.add(index);
+            serviceCRequests.add(messageService.buildServiceCRequest(serviceBTemplate, items.get(index)));
+        }
+
+        if (serviceCRequests.isEmpty()) {
+            return CompletableFuture.completedFuture(batchResponse(results));
+        }
+
+        return callServiceCBatch(new BatchRequest<>(serviceCRequests))
+                .thenApply(serviceCBatch -> {
+                    List<BatchItemResult<ServiceCResponse>> serviceCResults =
+                            checkedResults(serviceCBatch, forwarded.size(), "Service C");
+                    for (int i = 0; i < forwarded.size(); i++) {
+                        int index = forwarded.get(i);
+                        BatchItemResult<ServiceCResponse> serviceCResult = serviceCResults.get(i);
+                        results.set(index, serviceCResult.getError() != null
+                                ? BatchItemResult.failure(index, serviceCResult.getError())
+                                : BatchItemResult.success(index, messageService.completeServiceB(
+                                        serviceBLink, serviceCResult.getResult())));
+                    }
+                    return batchResponse(results);
+                });
+    }
+
+    /**
+     * Service C: Finalize messages for a batch
+     */
+    public BatchResponse<ServiceCResponse> processServiceCBatch(BatchRequest<ServiceCRequest> request) {
+        List<ServiceCRequest> items = request.getItems();
+
+        log.debug("Service C: Processing batch of {} items", items.size());
+
+        List<BatchItemResult<ServiceCResponse>> results = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            String violation = validate(items.get(index));
+            results.add(violation != null
+                    ? BatchItemResult.failure(index, invalidInput(violation, "service-c"))
+                    : BatchItemResult.success(index, messageService.processServiceC(items.get(index))));
+        }
+
+        return batchResponse(results);
+    }
+
+    private CompletableFuture<BatchResponse<ServiceBResponse>> callServiceBBatch(
+            BatchRequest<ServiceBRequest> request) {
+        if (!useRestClient || downstreamLocality.shortCircuitServiceB()) {
+            log.debug("Calling Service B batch via direct method call");
+            return processServiceBBatchAsync(request);
+        }
+        if (useAsync) {
+            log.debug("Calling Service B batch via RestClient asynchronously");
+            return serviceBClient.processBatchAsync(request);
+        }
+        log.debug("Calling Service B batch via RestClient synchronously");
+        return MessageService.completeNow(() -> serviceBClient.processBatch(request));
+    }
+
+    private CompletableFuture<BatchResponse<ServiceCResponse>> callServiceCBatch(
+            BatchRequest<ServiceCRequest> request) {
+        if (!useRestClient || downstreamLocality.shortCircuitServiceC()) {
+            log.debug("Calling Service C batch via direct method call");
+            return MessageService.completeNow(() -> processServiceCBatch(request));
+        }
+        if (useAsync) {
+            log.debug("Calling Service C batch via RestClient asynchronously");
+            return serviceCClient.processBatchAsync(request);
+        }
+        log.debug("Calling Service C batch via RestClient synchronously");
+        return MessageService.completeNow(() -> serviceCClient.processBatch(request));
+    }
+
+    private <T> List<BatchItemResult<T>> checkedResults(BatchResponse<T> response, int expected, String service) {
+        List<BatchItemResult<T>> results = response.getResults();
+        if (results == null || results.size() != expected) {
+            throw new ServiceCommunicationException(service + " returned "
+                    + (results == null ? 0 : results.size()) + " batch results for " + expected + " items");
+        }
+        return results;
+    }
+
+    private BatchMessageResponse completeBatch(long startTime, List<BatchItemResult<MessageResponse>> results) {
+        int failed = (int) results.stream().filter(result -> result.getError() != null).count();
+        long processingTime = System.currentTimeMillis() - startTime;
+
+        log.debug("Service A: Batch of {} processed in {}ms with {} failed items",
+                results.size(), processingTime, failed);
+
+        return BatchMessageResponse.builder()
+                .applicationName(appConfig.getApplicationName())
+                .results(results)
+                .total(results.size())
+                .succeeded(results.size() - failed)
+                .failed(failed)
+                .processingTimeMs(processingTime)
+                .build();
+    }
+
+    private <T> BatchResponse<T> batchResponse(List<BatchItemResult<T>> results) {
+        return BatchResponse.<T>builder()
+                .applicationName(appConfig.getApplicationName())
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Same rule as the user query parameter of GET /api/message
+     */
+    private String validateUser(String user) {
+        if (user == null) {
+            return "user is required";
+        }
+        if (user.length() > MAX_USER_LENGTH) {
+            return "user must not exceed " + MAX_USER_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private String validate(Object item) {
+        if (item == null) {
+            return "item is required";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Error reported on an item whose chain failed downstream
+     */
+    static ErrorResponse chainFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        return ErrorResponse.builder()
+                .error(cause instanceof ServiceCommunicationException
+                        ? "service_communication_error" : "service_unavailable")
+                .message("Failed to complete message chain")
+                .details(cause.getMessage())
+                .retryAfter(30)
+                .build();
+    }
+
+    private ErrorResponse invalidInput(String message, String failedService) {
+        return ErrorResponse.builder()
+                .error("invalid_input")
+                .message(message)
+                .failedService(failedService)
+                .build();
+    }
+}
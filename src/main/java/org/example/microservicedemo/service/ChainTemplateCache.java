@@ -0,0 +1,78 @@
+package org.example.microservicedemo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.exception.UnknownTemplateException;
+import org.example.microservicedemo.model.ChainDeltaRequest;
+import org.example.microservicedemo.model.ChainFragment;
+import org.example.microservicedemo.template.CompiledTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Downstream templates held by Service A for the delta protocol
+ *
+ * Templates are kept by fingerprint, so a fragment naming an older template that is
+ * still in flight resolves even after a newer one arrived. The latest fingerprint per
+ * service is what Service A advertises in its next ChainDeltaRequest.
+ */
+@Component
+@Slf4j
+public class ChainTemplateCache {
+
+    // A handful of services with a few versions each in flight
+    private static final int MAXIMUM_TEMPLATES = 64;
+
+    private final Cache<String, CompiledTemplate> templates = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_TEMPLATES)
+            .build();
+
+    private final Map<String, String> latestFingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Build a delta request advertising the templates already held
+     */
+    public ChainDeltaRequest deltaRequest() {
+        return ChainDeltaRequest.builder()
+                .knownTemplates(Map.copyOf(latestFingerprints))
+                .build();
+    }
+
+    /**
+     * Build a delta request advertising no templates, so every fragment carries its text
+     */
+    public ChainDeltaRequest fullDeltaRequest() {
+        return ChainDeltaRequest.builder()
+                .knownTemplates(Map.of())
+                .build();
+    }
+
+    /**
+     * Get the template a fragment was produced with, storing it if the fragment carries it
+     *
+     * @throws UnknownTemplateException if the fragment names a template no longer held;
+     *                                  the next request then asks for it again
+     */
+    public CompiledTemplate resolve(ChainFragment fragment) {
+        String fingerprint = fragment.getTemplateFingerprint();
+
+        if (fragment.getTemplate() != null) {
+            CompiledTemplate template = CompiledTemplate.compile(fragment.getTemplate());
+            templates.put(fingerprint, template);
+            if (!fingerprint.equals(latestFingerprints.put(fragment.getService(), fingerprint))) {
+                log.info("Received template {} for {}", fingerprint, fragment.getService());
+            }
+            return template;
+        }
+
+        CompiledTemplate template = templates.getIfPresent(fingerprint);
+        if (template == null) {
+            latestFingerprints.remove(fragment.getService(), fingerprint);
+            throw new UnknownTemplateException(fingerprint, fragment.getService());
+        }
+        return template;
+    }
+}
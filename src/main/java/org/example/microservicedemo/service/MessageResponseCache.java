@@ -0,0 +1,104 @@
+package org.example.microservicedemo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Optional bounded cache of complete Service A responses
+ *
+ * Entries are keyed by user plus the version of every template of the chain pipeline,
+ * including declared stages, so a template change makes every older entry unreachable;
+ * updates also clear the cache to free memory. Versions track templates held by this
+ * instance, so the cache assumes remote templates are updated through this instance as well.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MessageResponseCache {
+
+    private final ChainPipeline chainPipeline;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${services.response-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${services.response-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${services.response-cache.ttl:60s}")
+    private Duration ttl;
+
+    private Cache<Key, MessageResponse> cache;
+
+    /**
+     * Cache key: user plus the pipeline's template version at lookup time
+     */
+    public record Key(String user, long templateVersion) {
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("Response cache disabled");
+            return;
+        }
+
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "message.responses");
+
+        log.info("Response cache enabled with maximumSize={}, ttl={}", maximumSize, ttl);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Build the key for a user against the current template versions
+     *
+     * Must be taken before the chain runs: versions are bumped after a new template is
+     * visible, so a response can only ever be stored under a version at most as new as
+     * the templates that produced it.
+     */
+    public Key keyFor(String user) {
+        return new Key(user, chainPipeline.getTemplateVersion());
+    }
+
+    /**
+     * @return Cached response for the key, or null on a miss or when the cache is disabled
+     */
+    public MessageResponse get(Key key) {
+        return cache != null ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(Key key, MessageResponse response) {
+        if (cache != null) {
+            cache.put(key, response);
+        }
+    }
+
+    /**
+     * Drop every entry, called whenever a template changes and after the startup warm-up
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+            log.info("Response cache invalidated");
+        }
+    }
+}
@@ -2,17 +2,32 @@ package org.example.microservicedemo.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.client.DownstreamLocality;
 import org.example.microservicedemo.client.ServiceBClient;
 import org.example.microservicedemo.client.ServiceCClient;
+import org.example.microservicedemo.concurrent.AdaptiveConcurrencyLimiter;
+import org.example.microservicedemo.concurrent.KeyedRateLimiter;
+import org.example.microservicedemo.concurrent.RequestCoalescer;
 import org.example.microservicedemo.config.AppConfig;
+import org.example.microservicedemo.config.ChainProtocol;
 import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.exception.ConcurrencyLimitExceededException;
+import org.example.microservicedemo.exception.RateLimitExceededException;
+import org.example.microservicedemo.exception.UnknownTemplateException;
+import org.example.microservicedemo.metrics.ChainMetrics;
 import org.example.microservicedemo.model.*;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.store.TemplateStore;
+import org.example.microservicedemo.template.CompiledTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Service class handling message chain logic for all three services
@@ -26,6 +41,16 @@ public class MessageService {
     private final ServiceBClient serviceBClient;
     private final ServiceCClient serviceCClient;
     private final AppConfig appConfig;
+    private final MessageResponseCache responseCache;
+    private final RequestCoalescer<MessageResponseCache.Key, MessageResponse> requestCoalescer;
+    private final ChainMetrics chainMetrics;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final KeyedRateLimiter userRateLimiter;
+    private final ChainTemplateCache chainTemplateCache;
+    private final ChainPipeline chainPipeline;
+    private final PipelineService pipelineService;
+    private final DownstreamLocality downstreamLocality;
+    private final TemplateStore templateStore;
 
     @Value("${services.use-rest-client:true}")
     private boolean useRestClient;
@@ -33,58 +58,243 @@ public class MessageService {
     @Value("${services.use-async:true}")
     private boolean useAsync;
 
+    @Value("${services.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    @Value("${services.concurrency-limit.enabled:true}")
+    private boolean concurrencyLimitEnabled;
+
+    @Value("${services.rate-limit.enabled:false}")
+    private boolean rateLimitEnabled;
+
+    @Value("${services.chain-protocol:full}")
+    private ChainProtocol chainProtocol;
+
     /**
      * Service A: Entry point - generates message and initiates chain
+     *
+     * Runs the configured pipeline instead when pipeline.stages is set.
      */
     public MessageResponse processServiceA(String user) {
+        if (chainPipeline.isConfigured()) {
+            return chainMetrics.time(ChainMetrics.HOP_A_TOTAL, () -> pipelineService.executeAsync(user).join());
+        }
+        return chainMetrics.time(ChainMetrics.HOP_A_TOTAL, () -> executeServiceA(user));
+    }
+
+    private MessageResponse executeServiceA(String user) {
         long startTime = System.currentTimeMillis();
 
-        log.info("Service A: Processing request for user={}", user);
+        log.debug("Service A: Processing request for user={}", user);
 
-        // Generate Service A's message
-        String template = config.getServiceA().getCurrentTemplate();
-        String serviceAMessage = template.replace("{user}", user);
+        ChainLink serviceALink = buildServiceALink(user);
 
-        Instant serviceATimestamp = Instant.now();
-        ChainLink serviceALink = ChainLink.builder()
-                .service("service-a")
-                .applicationName(appConfig.getApplicationName())
-                .contribution(serviceAMessage)
-                .timestamp(serviceATimestamp)
-                .build();
+        // A Service B URL pointing at this instance is called in-process
+        boolean remote = useRestClient && !downstreamLocality.shortCircuitServiceB();
+
+        if (remote && chainProtocol == ChainProtocol.DELTA) {
+            log.debug("Calling Service B via RestClient with the delta protocol");
+            ChainDeltaResponse delta = callServiceBDelta(chainTemplateCache.deltaRequest());
+            try {
+                return assembleServiceA(startTime, serviceALink, delta);
+            } catch (UnknownTemplateException e) {
+                log.info("{}, asking Service B for every template", e.getMessage());
+                return assembleServiceA(startTime, serviceALink,
+                        callServiceBDelta(chainTemplateCache.fullDeltaRequest()));
+            }
+        }
 
         // Call Service B (via RestClient or in-process)
         ServiceBRequest serviceBRequest = ServiceBRequest.builder()
-                .currentMessage(serviceAMessage)
+                .currentMessage(serviceALink.getContribution())
                 .build();
 
         ServiceBResponse serviceBResponse;
-        if (useRestClient) {
+        if (remote) {
             if (useAsync) {
-                log.info("Calling Service B via RestClient asynchronously");
+                log.debug("Calling Service B via RestClient asynchronously");
                 try {
-                    serviceBResponse = serviceBClient.processMessageAsync(serviceBRequest).join();
+                    serviceBResponse = chainMetrics.time(ChainMetrics.HOP_B_CALL,
+                            () -> serviceBClient.processMessageAsync(serviceBRequest).join());
                 } catch (Exception e) {
                     log.error("Async call to Service B failed: {}", e.getMessage(), e);
                     throw new RuntimeException("Failed to process Service B asynchronously", e);
                 }
             } else {
-                log.info("Calling Service B via RestClient synchronously");
-                serviceBResponse = serviceBClient.processMessage(serviceBRequest);
+                log.debug("Calling Service B via RestClient synchronously");
+                serviceBResponse = chainMetrics.time(ChainMetrics.HOP_B_CALL,
+                        () -> serviceBClient.processMessage(serviceBRequest));
             }
         } else {
-            log.info("Calling Service B via direct method call");
-            serviceBResponse = processServiceB(serviceBRequest);
+            log.debug("Calling Service B via direct method call");
+            serviceBResponse = chainMetrics.time(ChainMetrics.HOP_B_CALL, () -> processServiceB(serviceBRequest));
+        }
+
+        return completeServiceA(startTime, serviceALink, serviceBResponse);
+    }
+
+    /**
+     * Service A: Non-blocking entry point for the async servlet path
+     *
+     * Served from the response cache when enabled and a response for the user and the
+     * current template versions is present. Otherwise concurrent identical requests are
+     * coalesced onto a single chain execution, whose result is cached.
+     *
+     * A user over their rate limit fails immediately with RateLimitExceededException (429),
+     * before the cache, so cached responses count against the limit too.
+     */
+    public CompletableFuture<MessageResponse> processServiceAAsync(String user) {
+        if (rateLimitEnabled) {
+            long waitNanos = userRateLimiter.tryAcquire(user);
+            if (waitNanos > 0) {
+                log.debug("Service A: Rejecting request for user={}, rate limit exceeded", user);
+                int retryAfterSeconds = (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+                return CompletableFuture.failedFuture(new RateLimitExceededException(retryAfterSeconds));
+            }
+        }
+
+        if (!responseCache.isEnabled() && !coalescingEnabled) {
+            return limitedChainAsync(user);
+        }
+
+        long startTime = System.currentTimeMillis();
+        MessageResponseCache.Key key = responseCache.keyFor(user);
+
+        MessageResponse cached = responseCache.get(key);
+        if (cached != null) {
+            log.debug("Service A: Serving cached message chain for user={}", user);
+            return CompletableFuture.completedFuture(copyWithProcessingTime(cached, startTime));
+        }
+
+        CompletableFuture<MessageResponse> execution = coalescingEnabled
+                ? requestCoalescer.execute(key, () -> limitedChainAsync(user))
+                : limitedChainAsync(user);
+
+        if (!responseCache.isEnabled()) {
+            return execution;
+        }
+        return execution.thenApply(response -> {
+            responseCache.put(key, response);
+            return response;
+        });
+    }
+
+    /**
+     * Run the chain under the adaptive concurrency limit
+     *
+     * Over the limit the request fails immediately with ConcurrencyLimitExceededException
+     * (503) rather than waiting for threads or connections. Cached responses and coalesced
+     * followers never reach this point, so they do not count against the limit.
+     */
+    private CompletableFuture<MessageResponse> limitedChainAsync(String user) {
+        if (!concurrencyLimitEnabled) {
+            return executeChainAsync(user);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            log.debug("Service A: Rejecting request for user={}, concurrency limit reached", user);
+            return CompletableFuture.failedFuture(new ConcurrencyLimitExceededException(concurrencyLimiter.getLimit()));
+        }
+
+        CompletableFuture<MessageResponse> execution;
+        try {
+            execution = executeChainAsync(user);
+        } catch (RuntimeException e) {
+            permit.release(true);
+            throw e;
+        }
+        return execution.whenComplete((response, error) -> permit.release(error != null));
+    }
+
+    /**
+     * Run the chain without blocking the caller
+     *
+     * In async RestClient mode the call to Service B is composed onto its future, so the
+     * calling request thread is released while Service B and C are working. Other modes
+     * have nothing to wait on and complete on the calling thread.
+     */
+    private CompletableFuture<MessageResponse> executeChainAsync(String user) {
+        if (chainPipeline.isConfigured()) {
+            return chainMetrics.timeAsync(ChainMetrics.HOP_A_TOTAL, () -> pipelineService.executeAsync(user));
+        }
+        if (!(useRestClient && useAsync)) {
+            return completeNow(() -> processServiceA(user));
         }
 
+        return chainMetrics.timeAsync(ChainMetrics.HOP_A_TOTAL, () -> {
+            long startTime = System.currentTimeMillis();
+
+            log.debug("Service A: Processing request for user={}", user);
+
+            ChainLink serviceALink = buildServiceALink(user);
+            boolean serviceBLocal = downstreamLocality.shortCircuitServiceB();
+
+            if (!serviceBLocal && chainProtocol == ChainProtocol.DELTA) {
+                log.debug("Calling Service B via RestClient asynchronously with the delta protocol");
+                return callServiceBDeltaAsync(chainTemplateCache.deltaRequest())
+                        .thenCompose(delta -> {
+                            try {
+                                return CompletableFuture.completedFuture(
+                                        assembleServiceA(startTime, serviceALink, delta));
+                            } catch (UnknownTemplateException e) {
+                                log.info("{}, asking Service B for every template", e.getMessage());
+                                return callServiceBDeltaAsync(chainTemplateCache.fullDeltaRequest())
+                                        .thenApply(full -> assembleServiceA(startTime, serviceALink, full));
+                            }
+                        });
+            }
+
+            ServiceBRequest serviceBRequest = ServiceBRequest.builder()
+                    .currentMessage(serviceALink.getContribution())
+                    .build();
+
+            if (serviceBLocal) {
+                log.debug("Calling Service B in-process, its URL points at this instance");
+                return chainMetrics.timeAsync(ChainMetrics.HOP_B_CALL, () -> processServiceBAsync(serviceBRequest))
+                        .thenApply(serviceBResponse -> completeServiceA(startTime, serviceALink, serviceBResponse));
+            }
+
+            log.debug("Calling Service B via RestClient asynchronously");
+            return chainMetrics.timeAsync(ChainMetrics.HOP_B_CALL,
+                            () -> serviceBClient.processMessageAsync(serviceBRequest))
+                    .thenApply(serviceBResponse -> completeServiceA(startTime, serviceALink, serviceBResponse));
+        });
+    }
+
+    private MessageResponse copyWithProcessingTime(MessageResponse response, long startTime) {
+        return MessageResponse.builder()
+                .applicationName(response.getApplicationName())
+                .message(response.getMessage())
+                .chain(response.getChain())
+                .complete(response.getComplete())
+                .totalLength(response.getTotalLength())
+                .processingTimeMs(System.currentTimeMillis() - startTime)
+                .build();
+    }
+
+    ChainLink buildServiceALink(String user) {
+        // Generate Service A's message
+        CompiledTemplate template = config.getServiceA().getCompiledTemplate();
+        String serviceAMessage = template.render(CompiledTemplate.USER, user);
+
+        return ChainLink.builder()
+                .service("service-a")
+                .applicationName(appConfig.getApplicationName())
+                .contribution(serviceAMessage)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    MessageResponse completeServiceA(long startTime, ChainLink serviceALink, ServiceBResponse serviceBResponse) {
         // Build complete chain
-        List<ChainLink> completeChain = new ArrayList<>();
+        List<ChainLink> completeChain = new ArrayList<>(serviceBResponse.getChain().size() + 1);
         completeChain.add(serviceALink);
         completeChain.addAll(serviceBResponse.getChain());
 
         long processingTime = System.currentTimeMillis() - startTime;
 
-        log.info("Service A: Complete message chain processed in {}ms", processingTime);
+        log.debug("Service A: Complete message chain processed in {}ms", processingTime);
 
         return MessageResponse.builder()
                 .applicationName(appConfig.getApplicationName())
@@ -96,54 +306,148 @@ public class MessageService {
                 .build();
     }
 
+    private ChainDeltaResponse callServiceBDelta(ChainDeltaRequest deltaRequest) {
+        return chainMetrics.time(ChainMetrics.HOP_B_CALL, () -> useAsync
+                ? serviceBClient.processDeltaAsync(deltaRequest).join()
+                : serviceBClient.processDelta(deltaRequest));
+    }
+
+    private CompletableFuture<ChainDeltaResponse> callServiceBDeltaAsync(ChainDeltaRequest deltaRequest) {
+        return chainMetrics.timeAsync(ChainMetrics.HOP_B_CALL, () -> serviceBClient.processDeltaAsync(deltaRequest));
+    }
+
     /**
-     * Service B: Appends message and calls Service C
+     * Service A: Assemble the final message from the fragments of the delta protocol
+     *
+     * Renders each downstream template onto the message so far, exactly as Service B and
+     * C would have, so the result matches the full protocol. A fragment naming a template
+     * that is no longer held fails with UnknownTemplateException, and the caller repeats
+     * the call once advertising no templates.
      */
-    public ServiceBResponse processServiceB(ServiceBRequest request) {
-        log.info("Service B: Processing request with current message length={}",
-                request.getCurrentMessage().length());
+    MessageResponse assembleServiceA(long startTime, ChainLink serviceALink, ChainDeltaResponse delta) {
+        List<ChainLink> completeChain = new ArrayList<>(delta.getFragments().size() + 1);
+        completeChain.add(serviceALink);
 
-        // Get Service B's template and append message
-        String template = config.getServiceB().getCurrentTemplate();
-        String serviceBMessage = template.replace("{previous_message}", request.getCurrentMessage());
+        String message = serviceALink.getContribution();
+        for (ChainFragment fragment : delta.getFragments()) {
+            CompiledTemplate template = chainTemplateCache.resolve(fragment);
+            message = template.render(CompiledTemplate.PREVIOUS_MESSAGE, message);
+
+            completeChain.add(ChainLink.builder()
+                    .service(fragment.getService())
+                    .applicationName(fragment.getApplicationName())
+                    .contribution(template.getContribution())
+                    .timestamp(fragment.getTimestamp())
+                    .build());
+        }
 
-        // Extract the contribution by removing the placeholder
-        String contribution = template.replace("{previous_message}", "").trim();
+        long processingTime = System.currentTimeMillis() - startTime;
 
-        Instant serviceBTimestamp = Instant.now();
-        ChainLink serviceBLink = ChainLink.builder()
-                .service("service-b")
+        log.debug("Service A: Complete message chain assembled from {} fragments in {}ms",
+                delta.getFragments().size(), processingTime);
+
+        return MessageResponse.builder()
                 .applicationName(appConfig.getApplicationName())
-                .contribution(contribution)
-                .timestamp(serviceBTimestamp)
+                .message(message)
+                .chain(completeChain)
+                .complete(true)
+                .totalLength(message.length())
+                .processingTimeMs(processingTime)
                 .build();
+    }
 
-        // Call Service C (via RestClient or in-process)
-        ServiceCRequest serviceCRequest = ServiceCRequest.builder()
-                .currentMessage(serviceBMessage)
-                .build();
+    /**
+     * Service B: Appends message and calls Service C
+     */
+    public ServiceBResponse processServiceB(ServiceBRequest request) {
+        log.debug("Service B: Processing request with current message length={}",
+                request.getCurrentMessage().length());
+
+        CompiledTemplate template = serviceBTemplate();
+        ChainLink serviceBLink = buildServiceBLink(template);
+        ServiceCRequest serviceCRequest = buildServiceCRequest(template, request);
 
         ServiceCResponse serviceCResponse;
-        if (useRestClient) {
+        if (useRestClient && !downstreamLocality.shortCircuitServiceC()) {
             if (useAsync) {
-                log.info("Calling Service C via RestClient asynchronously");
+                log.debug("Calling Service C via RestClient asynchronously");
                 try {
-                    serviceCResponse = serviceCClient.processMessageAsync(serviceCRequest).join();
+                    serviceCResponse = chainMetrics.time(ChainMetrics.HOP_C_CALL,
+                            () -> serviceCClient.processMessageAsync(serviceCRequest).join());
                 } catch (Exception e) {
                     log.error("Async call to Service C failed: {}", e.getMessage(), e);
                     throw new RuntimeException("Failed to process Service C asynchronously", e);
                 }
             } else {
-                log.info("Calling Service C via RestClient synchronously");
-                serviceCResponse = serviceCClient.processMessage(serviceCRequest);
+                log.debug("Calling Service C via RestClient synchronously");
+                serviceCResponse = chainMetrics.time(ChainMetrics.HOP_C_CALL,
+                        () -> serviceCClient.processMessage(serviceCRequest));
             }
         } else {
-            log.info("Calling Service C via direct method call");
-            serviceCResponse = processServiceC(serviceCRequest);
+            log.debug("Calling Service C via direct method call");
+            serviceCResponse = chainMetrics.time(ChainMetrics.HOP_C_CALL, () -> processServiceC(serviceCRequest));
         }
 
+        return completeServiceB(serviceBLink, serviceCResponse);
+    }
+
+    /**
+     * Service B: Non-blocking variant composing the call to Service C
+     */
+    public CompletableFuture<ServiceBResponse> processServiceBAsync(ServiceBRequest request) {
+        if (!(useRestClient && useAsync)) {
+            return completeNow(() -> processServiceB(request));
+        }
+
+        log.debug("Service B: Processing request with current message length={}",
+                request.getCurrentMessage().length());
+
+        CompiledTemplate template = serviceBTemplate();
+        ChainLink serviceBLink = buildServiceBLink(template);
+        ServiceCRequest serviceCRequest = buildServiceCRequest(template, request);
+
+        if (downstreamLocality.shortCircuitServiceC()) {
+            log.debug("Calling Service C in-process, its URL points at this instance");
+            return chainMetrics.timeAsync(ChainMetrics.HOP_C_CALL,
+                            () -> completeNow(() -> processServiceC(serviceCRequest)))
+                    .thenApply(serviceCResponse -> completeServiceB(serviceBLink, serviceCResponse));
+        }
+
+        log.debug("Calling Service C via RestClient asynchronously");
+        return chainMetrics.timeAsync(ChainMetrics.HOP_C_CALL, () -> serviceCClient.processMessageAsync(serviceCRequest))
+                .thenApply(serviceCResponse -> completeServiceB(serviceBLink, serviceCResponse));
+    }
+
+    /**
+     * Service B's current template, read once per request so its link and the message sent
+     * on to Service C agree even if the template is updated meanwhile
+     */
+    CompiledTemplate serviceBTemplate() {
+        return config.getServiceB().getCompiledTemplate();
+    }
+
+    ChainLink buildServiceBLink(CompiledTemplate template) {
+        // Contribution is precomputed when the template is compiled
+        return ChainLink.builder()
+                .service("service-b")
+                .applicationName(appConfig.getApplicationName())
+                .contribution(template.getContribution())
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    ServiceCRequest buildServiceCRequest(CompiledTemplate template, ServiceBRequest request) {
+        // Append Service B's message
+        String serviceBMessage = template.render(CompiledTemplate.PREVIOUS_MESSAGE, request.getCurrentMessage());
+
+        return ServiceCRequest.builder()
+                .currentMessage(serviceBMessage)
+                .build();
+    }
+
+    ServiceBResponse completeServiceB(ChainLink serviceBLink, ServiceCResponse serviceCResponse) {
         // Build chain for Service B's response
-        List<ChainLink> chain = new ArrayList<>();
+        List<ChainLink> chain = new ArrayList<>(2);
         chain.add(serviceBLink);
         chain.add(ChainLink.builder()
                 .service("service-c")
@@ -152,7 +456,7 @@ public class MessageService {
                 .timestamp(serviceCResponse.getTimestamp())
                 .build());
 
-        log.info("Service B: Processed and forwarded to Service C");
+        log.debug("Service B: Processed and forwarded to Service C");
 
         return ServiceBResponse.builder()
                 .applicationName(appConfig.getApplicationName())
@@ -161,23 +465,112 @@ public class MessageService {
                 .build();
     }
 
+    /**
+     * Service B: Delta protocol - returns its own fragment followed by Service C's
+     */
+    public ChainDeltaResponse processServiceBDelta(ChainDeltaRequest request) {
+        log.debug("Service B: Processing delta request");
+
+        ChainFragment serviceBFragment = buildFragment("service-b", config.getServiceB(), request);
+
+        ChainDeltaResponse serviceCResponse;
+        if (useRestClient && !downstreamLocality.shortCircuitServiceC()) {
+            if (useAsync) {
+                log.debug("Calling Service C via RestClient asynchronously with the delta protocol");
+                serviceCResponse = chainMetrics.time(ChainMetrics.HOP_C_CALL,
+                        () -> serviceCClient.processDeltaAsync(request).join());
+            } else {
+                log.debug("Calling Service C via RestClient synchronously with the delta protocol");
+                serviceCResponse = chainMetrics.time(ChainMetrics.HOP_C_CALL,
+                        () -> serviceCClient.processDelta(request));
+            }
+        } else {
+            log.debug("Calling Service C via direct method call with the delta protocol");
+            serviceCResponse = chainMetrics.time(ChainMetrics.HOP_C_CALL, () -> processServiceCDelta(request));
+        }
+
+        return completeServiceBDelta(serviceBFragment, serviceCResponse);
+    }
+
+    /**
+     * Service B: Non-blocking variant of the delta protocol
+     */
+    public CompletableFuture<ChainDeltaResponse> processServiceBDeltaAsync(ChainDeltaRequest request) {
+        if (!(useRestClient && useAsync)) {
+            return completeNow(() -> processServiceBDelta(request));
+        }
+
+        log.debug("Service B: Processing delta request");
+
+        ChainFragment serviceBFragment = buildFragment("service-b", config.getServiceB(), request);
+
+        if (downstreamLocality.shortCircuitServiceC()) {
+            log.debug("Calling Service C in-process with the delta protocol, its URL points at this instance");
+            return chainMetrics.timeAsync(ChainMetrics.HOP_C_CALL,
+                            () -> completeNow(() -> processServiceCDelta(request)))
+                    .thenApply(serviceCResponse -> completeServiceBDelta(serviceBFragment, serviceCResponse));
+        }
+
+        log.debug("Calling Service C via RestClient asynchronously with the delta protocol");
+        return chainMetrics.timeAsync(ChainMetrics.HOP_C_CALL, () -> serviceCClient.processDeltaAsync(request))
+                .thenApply(serviceCResponse -> completeServiceBDelta(serviceBFragment, serviceCResponse));
+    }
+
+    private ChainDeltaResponse completeServiceBDelta(ChainFragment serviceBFragment, ChainDeltaResponse serviceCResponse) {
+        List<ChainFragment> fragments = new ArrayList<>(serviceCResponse.getFragments().size() + 1);
+        fragments.add(serviceBFragment);
+        fragments.addAll(serviceCResponse.getFragments());
+
+        return ChainDeltaResponse.builder()
+                .fragments(fragments)
+                .build();
+    }
+
+    /**
+     * Service C: Delta protocol - returns its own fragment
+     */
+    public ChainDeltaResponse processServiceCDelta(ChainDeltaRequest request) {
+        log.debug("Service C: Processing delta request");
+
+        return ChainDeltaResponse.builder()
+                .fragments(List.of(buildFragment("service-c", config.getServiceC(), request)))
+                .build();
+    }
+
+    /**
+     * Describe this service's current template, leaving out its text if the caller holds it
+     */
+    ChainFragment buildFragment(String service, MessageTemplateConfig.ServiceTemplate serviceTemplate,
+                                ChainDeltaRequest request) {
+        CompiledTemplate template = serviceTemplate.getCompiledTemplate();
+        String known = request.getKnownTemplates() != null ? request.getKnownTemplates().get(service) : null;
+
+        return ChainFragment.builder()
+                .service(service)
+                .applicationName(appConfig.getApplicationName())
+                .templateFingerprint(template.getFingerprint())
+                .template(template.getFingerprint().equals(known) ? null : template.getSource())
+                .timestamp(Instant.now())
+                .build();
+    }
+
     /**
      * Service C: Final service - appends final message and returns
      */
     public ServiceCResponse processServiceC(ServiceCRequest request) {
-        log.info("Service C: Processing final request with current message length={}",
+        log.debug("Service C: Processing final request with current message length={}",
                 request.getCurrentMessage().length());
 
         // Get Service C's template and append final message
-        String template = config.getServiceC().getCurrentTemplate();
-        String finalMessage = template.replace("{previous_message}", request.getCurrentMessage());
+        CompiledTemplate template = config.getServiceC().getCompiledTemplate();
+        String finalMessage = template.render(CompiledTemplate.PREVIOUS_MESSAGE, request.getCurrentMessage());
 
-        // Extract the contribution by removing the placeholder
-        String contribution = template.replace("{previous_message}", "").trim();
+        // Contribution is precomputed when the template is compiled
+        String contribution = template.getContribution();
 
         Instant serviceCTimestamp = Instant.now();
 
-        log.info("Service C: Final message generated");
+        log.debug("Service C: Final message generated");
 
         return ServiceCResponse.builder()
                 .applicationName(appConfig.getApplicationName())
@@ -188,29 +581,24 @@ public class MessageService {
     }
 
     /**
-     * Update template for a specific service
+     * Update template for a specific service or local pipeline stage
      */
     public UpdateTemplateResponse updateTemplate(String serviceName, String newTemplate) {
         log.info("Updating template for service={}", serviceName);
 
-        MessageTemplateConfig.ServiceTemplate serviceTemplate;
+        MessageTemplateConfig.ServiceTemplate serviceTemplate = chainPipeline.getLocalStage(serviceName).getTemplate();
 
-        switch (serviceName.toLowerCase()) {
-            case "service-a":
-                serviceTemplate = config.getServiceA();
-                break;
-            case "service-b":
-                serviceTemplate = config.getServiceB();
-                break;
-            case "service-c":
-                serviceTemplate = config.getServiceC();
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown service: " + serviceName);
+        long version;
+        if (templateStore.isEnabled()) {
+            // Applied, and the response cache invalidated, by the store once durable
+            version = templateStore.append(serviceName, newTemplate);
+        } else {
+            if (serviceTemplate.updateTemplate(newTemplate)) {
+                responseCache.invalidateAll();
+            }
+            version = serviceTemplate.getVersion();
         }
 
-        serviceTemplate.updateTemplate(newTemplate);
-
         log.info("Template updated successfully for service={}", serviceName);
 
         return UpdateTemplateResponse.builder()
@@ -219,22 +607,25 @@ public class MessageService {
                 .template(newTemplate)
                 .updatedAt(Instant.now())
                 .message("Message template updated successfully")
+                .version(version)
                 .build();
     }
 
     /**
-     * Get current template for a service
+     * Get current template for a service or local pipeline stage
      */
     public String getCurrentTemplate(String serviceName) {
-        switch (serviceName.toLowerCase()) {
-            case "service-a":
-                return config.getServiceA().getCurrentTemplate();
-            case "service-b":
-                return config.getServiceB().getCurrentTemplate();
-            case "service-c":
-                return config.getServiceC().getCurrentTemplate();
-            default:
-                throw new IllegalArgumentException("Unknown service: " + serviceName);
+        return chainPipeline.getLocalStage(serviceName).getTemplate().getCurrentTemplate();
+    }
+
+    /**
+     * Run a local step on the calling thread and expose its outcome as a future
+     */
+    static <T> CompletableFuture<T> completeNow(Supplier<T> step) {
+        try {
+            return CompletableFuture.completedFuture(step.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 }
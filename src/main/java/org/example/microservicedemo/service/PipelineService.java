@@ -0,0 +1,149 @@
+package org.example.microservicedemo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.client.PipelineClient;
+import org.example.microservicedemo.config.AppConfig;
+import org.example.microservicedemo.metrics.ChainMetrics;
+import org.example.microservicedemo.model.ChainLink;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.model.PipelineRequest;
+import org.example.microservicedemo.model.PipelineResponse;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.pipeline.PipelineSegment;
+import org.example.microservicedemo.pipeline.PipelineStage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service class running the configured chain pipeline
+ *
+ * Segments run in order. Local segments render all of their stages in one pass on the
+ * current thread, passing the message as a plain String, so only remote segments pay
+ * for a network call and serialization.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PipelineService {
+
+    private final ChainPipeline chainPipeline;
+    private final PipelineClient pipelineClient;
+    private final AppConfig appConfig;
+    private final ChainMetrics chainMetrics;
+
+    @Value("${services.use-async:true}")
+    private boolean useAsync;
+
+    /**
+     * Run every stage of the pipeline for a user
+     *
+     * In async mode remote segments are composed onto their futures, so no thread waits
+     * on them; otherwise the pipeline completes on the calling thread.
+     */
+    public CompletableFuture<MessageResponse> executeAsync(String user) {
+        long startTime = System.currentTimeMillis();
+
+        log.debug("Pipeline: Processing request for user={}", user);
+
+        CompletableFuture<PipelineResponse> progress = CompletableFuture.completedFuture(
+                PipelineResponse.builder().chain(new ArrayList<>()).build());
+        for (PipelineSegment segment : chainPipeline.getSegments()) {
+            progress = progress.thenCompose(current -> executeSegment(segment, user, current));
+        }
+
+        return progress.thenApply(result -> {
+            long processingTime = System.currentTimeMillis() - startTime;
+
+            log.debug("Pipeline: {} stages processed in {}ms", result.getChain().size(), processingTime);
+
+            return MessageResponse.builder()
+                    .applicationName(appConfig.getApplicationName())
+                    .message(result.getMessage())
+                    .chain(result.getChain())
+                    .complete(true)
+                    .totalLength(result.getMessage().length())
+                    .processingTimeMs(processingTime)
+                    .build();
+        });
+    }
+
+    private CompletableFuture<PipelineResponse> executeSegment(PipelineSegment segment, String user,
+                                                               PipelineResponse current) {
+        if (segment.isLocal()) {
+            return MessageService.completeNow(() -> {
+                current.setMessage(renderStages(segment.stages(), user, current.getMessage(), current.getChain()));
+                return current;
+            });
+        }
+
+        PipelineRequest request = PipelineRequest.builder()
+                .stages(segment.stageNames())
+                .user(user)
+                .message(current.getMessage())
+                .build();
+
+        CompletableFuture<PipelineResponse> call = useAsync
+                ? chainMetrics.timeAsync(ChainMetrics.HOP_PIPELINE_CALL,
+                        () -> pipelineClient.executeAsync(segment.url(), request))
+                : MessageService.completeNow(() -> chainMetrics.time(ChainMetrics.HOP_PIPELINE_CALL,
+                        () -> pipelineClient.execute(segment.url(), request)));
+
+        return call.thenApply(response -> {
+            current.getChain().addAll(response.getChain());
+            current.setMessage(response.getMessage());
+            return current;
+        });
+    }
+
+    /**
+     * Run stages of this instance for a remote caller (POST /internal/pipeline/execute)
+     *
+     * @throws IllegalArgumentException if a stage is unknown or does not run here, or there
+     *                                  is neither a message nor a user to start from
+     */
+    public PipelineResponse executeStages(PipelineRequest request) {
+        if (request.getMessage() == null && request.getUser() == null) {
+            throw new IllegalArgumentException("user is required when message is not set");
+        }
+
+        List<PipelineStage> stages = request.getStages().stream()
+                .map(chainPipeline::getLocalStage)
+                .toList();
+
+        List<ChainLink> chain = new ArrayList<>(stages.size());
+        String message = renderStages(stages, request.getUser(), request.getMessage(), chain);
+
+        return PipelineResponse.builder()
+                .message(message)
+                .chain(chain)
+                .build();
+    }
+
+    /**
+     * Render stages in one pass, adding a chain link per stage
+     *
+     * @param message Message so far, or null if the first stage starts the pipeline
+     * @return Message after the last stage
+     */
+    private String renderStages(List<PipelineStage> stages, String user, String message, List<ChainLink> chain) {
+        for (PipelineStage stage : stages) {
+            boolean head = message == null;
+            String output = stage.render(head ? user : message);
+
+            chain.add(ChainLink.builder()
+                    .service(stage.getName())
+                    .applicationName(appConfig.getApplicationName())
+                    .contribution(stage.contribution(output, head))
+                    .timestamp(Instant.now())
+                    .build());
+            message = output;
+        }
+        return message;
+    }
+}
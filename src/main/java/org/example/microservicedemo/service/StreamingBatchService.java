@@ -0,0 +1,178 @@
+package org.example.microservicedemo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.model.BatchItemResult;
+import org.example.microservicedemo.model.BatchMessageResponse;
+import org.example.microservicedemo.model.ErrorResponse;
+import org.example.microservicedemo.model.MessageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Service class streaming batch results as NDJSON
+ *
+ * Users are read incrementally from the request body and processed in chunks through
+ * BatchMessageService, with at most max-in-flight chunks outstanding. Each completed chunk
+ * is written immediately, one BatchItemResult per line, in completion order. Reading the
+ * input and writing the output both block, so a slow client stops further chunks from being
+ * started and heap use stays bounded by chunk-size × max-in-flight, whatever the batch size.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingBatchService {
+
+    private final BatchMessageService batchMessageService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${services.batch.stream-chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${services.batch.stream-max-in-flight:4}")
+    private int maxInFlight;
+
+    /**
+     * Open the users array of a batch body: either {"users": [...]} or a bare [...]
+     *
+     * @return Parser positioned inside the users array
+     * @throws IllegalArgumentException if the body does not start with a users array
+     */
+    public JsonParser openUsers(InputStream body) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(body);
+
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                token = parser.nextToken();
+                if ("users".equals(field) && token == JsonToken.START_ARRAY) {
+                    return parser;
+                }
+                parser.skipChildren();
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            return parser;
+        }
+
+        parser.close();
+        throw new IllegalArgumentException("Request body must be {\"users\": [...]} or a JSON array of users");
+    }
+
+    /**
+     * Process every user from the parser and write one NDJSON line per result
+     */
+    public void streamServiceABatch(JsonParser users, OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        BlockingQueue<CompletedChunk> completed = new LinkedBlockingQueue<>();
+        int offset = 0;
+        int inFlight = 0;
+        boolean inputDone = false;
+        long failed = 0;
+
+        try (users; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            while (!inputDone || inFlight > 0) {
+                // Keep the window full while there is input left
+                while (!inputDone && inFlight < maxInFlight) {
+                    List<String> chunk = readChunk(users);
+                    if (chunk.isEmpty()) {
+                        inputDone = true;
+                        break;
+                    }
+
+                    // A short chunk means the end of the users array was reached
+                    inputDone = chunk.size() < chunkSize;
+
+                    int chunkOffset = offset;
+                    offset += chunk.size();
+                    inFlight++;
+                    batchMessageService.processServiceABatchAsync(chunk)
+                            .whenComplete((response, error) ->
+                                    completed.add(new CompletedChunk(chunkOffset, chunk.size(), response, error)));
+                }
+
+                if (inFlight == 0) {
+                    break;
+                }
+
+                CompletedChunk chunk = completed.take();
+                inFlight--;
+                failed += writeChunk(generator, chunk);
+                generator.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while streaming batch", e);
+        }
+
+        log.debug("Service A: Streamed batch of {} users in {}ms with {} failed items",
+                offset, System.currentTimeMillis() - startTime, failed);
+    }
+
+    private List<String> readChunk(JsonParser users) throws IOException {
+        List<String> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize) {
+            JsonToken token = users.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                break;
+            }
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                // Not a user; pass it on as null so it is reported as an invalid item
+                users.skipChildren();
+                chunk.add(null);
+            } else {
+                chunk.add(token == JsonToken.VALUE_NULL ? null : users.getValueAsString());
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * @return Number of failed items written
+     */
+    private long writeChunk(JsonGenerator generator, CompletedChunk chunk) throws IOException {
+        if (chunk.error() != null) {
+            // The whole chunk failed downstream; report it on each of its items
+            Throwable cause = chunk.error() instanceof CompletionException && chunk.error().getCause() != null
+                    ? chunk.error().getCause() : chunk.error();
+            log.error("Streamed batch chunk at offset {} failed: {}", chunk.offset(), cause.getMessage());
+
+            ErrorResponse error = BatchMessageService.chainFailure(cause);
+            for (int i = 0; i < chunk.size(); i++) {
+                writeLine(generator, BatchItemResult.failure(chunk.offset() + i, error));
+            }
+            return chunk.size();
+        }
+
+        for (BatchItemResult<MessageResponse> result : chunk.response().getResults()) {
+            result.setIndex(chunk.offset() + result.getIndex());
+            writeLine(generator, result);
+        }
+        return chunk.response().getFailed();
+    }
+
+    private void writeLine(JsonGenerator generator, BatchItemResult<MessageResponse> result) throws IOException {
+        objectMapper.writeValue(generator, result);
+        generator.writeRaw('\n');
+    }
+
+    private record CompletedChunk(int offset, int size, BatchMessageResponse response, Throwable error) {
+    }
+}
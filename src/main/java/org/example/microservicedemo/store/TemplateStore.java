@@ -0,0 +1,309 @@
+package org.example.microservicedemo.store;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.service.MessageResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Durable store of runtime template overrides in a memory-mapped, append-only file
+ *
+ * Every template update is appended as a record carrying a store version, one higher than
+ * the previous record's, so the latest record per service wins. On startup the mapped file
+ * is scanned once and the latest template of each local service or stage is applied, so
+ * overrides survive restarts. Instances sharing the file (same host or a shared volume)
+ * converge: appends take an exclusive file lock, and a watcher thread applies records
+ * written by other instances as soon as the file changes, or every watch-interval at the
+ * latest, since writes through a mapping do not always raise file system events.
+ *
+ * Record layout: payload length (int), CRC32 of the payload (int), then the payload:
+ * version (long), name length (int), name (UTF-8), template length (int), template (UTF-8).
+ * The length is written last, and a record whose checksum does not match is treated as
+ * still being written, so readers never apply a torn record.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateStore {
+
+    // "TPLS" followed by the format version
+    private static final int MAGIC = 0x54504C53;
+    private static final int FORMAT = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final ChainPipeline chainPipeline;
+    private final MessageResponseCache responseCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${services.template-store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${services.template-store.file:templates.store}")
+    private Path file;
+
+    @Value("${services.template-store.initial-size:1MB}")
+    private DataSize initialSize;
+
+    @Value("${services.template-store.watch-interval:1s}")
+    private Duration watchInterval;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int readPosition = FILE_HEADER_SIZE;
+    private volatile long version;
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            log.info("Template store disabled, template updates are kept in memory only");
+            return;
+        }
+
+        long start = System.nanoTime();
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try (FileLock ignored = channel.lock()) {
+            if (channel.size() < FILE_HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(FORMAT).flip();
+                channel.write(header, 0);
+                extend(Math.max(initialSize.toBytes(), FILE_HEADER_SIZE + RECORD_HEADER_SIZE));
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+                throw new IllegalStateException("Not a template store file: " + file.toAbsolutePath());
+            }
+            catchUp();
+        }
+
+        Gauge.builder("template.store.version", this, TemplateStore::getVersion)
+                .description("Version of the latest template store record applied by this instance")
+                .register(meterRegistry);
+
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        watcher = new Thread(this::watch, "template-store-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        log.info("Template store {} loaded at version {} in {}ms", file.toAbsolutePath(), version,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    /**
+     * @return Version of the latest record applied, 0 before the first update
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Durably store a template update and apply it
+     *
+     * Records appended by other instances are applied first, so the new record is numbered
+     * after everything already in the file. The record carries the stage's own name, so
+     * updates addressed as "Service-A" and "service-a" replace each other.
+     *
+     * @param name Local stage name, in any case
+     * @return Store version of the update
+     * @throws IllegalArgumentException if name is not a local stage
+     */
+    public synchronized long append(String name, String template) {
+        byte[] nameBytes = chainPipeline.getLocalStage(name).getName().getBytes(StandardCharsets.UTF_8);
+        byte[] templateBytes = template.getBytes(StandardCharsets.UTF_8);
+
+        try (FileLock ignored = channel.lock()) {
+            catchUp();
+
+            ByteBuffer payload = ByteBuffer.allocate(8 + 4 + nameBytes.length + 4 + templateBytes.length)
+                    .putLong(version + 1)
+                    .putInt(nameBytes.length).put(nameBytes)
+                    .putInt(templateBytes.length).put(templateBytes);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+
+            // Keep room for the zero length that marks the end of the log
+            int recordSize = RECORD_HEADER_SIZE + payload.capacity();
+            if ((long) readPosition + recordSize + 4 > buffer.capacity()) {
+                extend(Math.max(2L * buffer.capacity(), (long) readPosition + recordSize + 4));
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            }
+
+            buffer.putInt(readPosition + 4, (int) crc.getValue());
+            buffer.put(readPosition + RECORD_HEADER_SIZE, payload.array());
+            buffer.putInt(readPosition, payload.capacity());
+            buffer.force(readPosition, recordSize);
+
+            catchUp();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store template for " + name, e);
+        }
+
+        try {
+            // Writes through the mapping raise no modify event, so wake the watchers explicitly
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.warn("Failed to touch template store {}: {}", file.toAbsolutePath(), e.getMessage());
+        }
+        return version;
+    }
+
+    /**
+     * Apply every complete record after readPosition, the latest per stage only, in the
+     * order those were written
+     */
+    synchronized void catchUp() throws IOException {
+        Map<String, String> latest = new LinkedHashMap<>();
+        long latestVersion = version;
+
+        while (true) {
+            if (readPosition + RECORD_HEADER_SIZE > buffer.capacity()
+                    || readPosition + RECORD_HEADER_SIZE + Math.max(0, buffer.getInt(readPosition)) > buffer.capacity()) {
+                // Another instance may have grown the file past our mapping
+                if (channel.size() <= buffer.capacity()) {
+                    break;
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                continue;
+            }
+
+            int length = buffer.getInt(readPosition);
+            if (length <= 0) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(readPosition + RECORD_HEADER_SIZE, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(readPosition + 4)) {
+                // Still being written by another instance
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(payload);
+            latestVersion = record.getLong();
+            String name = canonicalName(readString(record));
+            // Re-inserted, not replaced in place, so later records are applied later
+            latest.remove(name);
+            latest.put(name, readString(record));
+            readPosition += RECORD_HEADER_SIZE + length;
+        }
+
+        latest.forEach(this::apply);
+        version = latestVersion;
+    }
+
+    /**
+     * Stage name as configured, or the name as written if this instance has no such stage
+     *
+     * Files written before names were stored canonically may mix cases for one stage.
+     */
+    private String canonicalName(String name) {
+        try {
+            return chainPipeline.getStage(name).getName();
+        } catch (IllegalArgumentException e) {
+            return name;
+        }
+    }
+
+    private void apply(String name, String template) {
+        MessageTemplateConfig.ServiceTemplate serviceTemplate;
+        try {
+            serviceTemplate = chainPipeline.getLocalStage(name).getTemplate();
+        } catch (IllegalArgumentException e) {
+            // Written by an instance with a different pipeline
+            log.debug("Template store: skipping template for {}, not a local stage", name);
+            return;
+        }
+
+        if (serviceTemplate.updateTemplate(template)) {
+            responseCache.invalidateAll();
+            log.info("Template store: applied template for {}", name);
+        }
+    }
+
+    private static String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void extend(long size) throws IOException {
+        channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey key = watchService.poll(watchInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // Any event or a timeout: reading the next record header is cheap either way
+                    key.pollEvents();
+                    key.reset();
+                }
+                catchUp();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Template store: failed to read {}: {}", file.toAbsolutePath(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        watcher.interrupt();
+        watchService.close();
+        try {
+            watcher.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
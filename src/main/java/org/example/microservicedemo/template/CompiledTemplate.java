@@ -0,0 +1,252 @@
+package org.example.microservicedemo.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, pre-parsed form of a message template
+ *
+ * A template such as "{previous_message} Welcome to our system." is split once into
+ * literal segments and named placeholder slots. Templates of up to four parts, which
+ * covers the chain's own, are rendered with a single string concatenation that sizes and
+ * fills the result in one allocation; longer ones go through a pre-sized buffer. No regex
+ * or intermediate strings are involved per request.
+ *
+ * Placeholders use the {name} syntax, where name consists of letters, digits, '_', '-' or '.'.
+ * Anything else between braces is kept as literal text. Placeholders without a value
+ * at render time are written back verbatim, matching the previous String.replace behaviour.
+ */
+public final class CompiledTemplate {
+
+    /**
+     * Placeholder carrying the message produced by the previous service in the chain
+     */
+    public static final String PREVIOUS_MESSAGE = "previous_message";
+
+    /**
+     * Placeholder carrying the user name on the client-facing service
+     */
+    public static final String USER = "user";
+
+    private final String source;
+
+    // parts[i] is a literal segment when names[i] == null, otherwise the raw "{name}" token
+    private final String[] parts;
+    private final String[] names;
+    private final int literalLength;
+    private final Set<String> placeholders;
+    private final String contribution;
+    private final String fingerprint;
+
+    private CompiledTemplate(String source, String[] parts, String[] names) {
+        this.source = source;
+        this.parts = parts;
+        this.names = names;
+
+        int length = 0;
+        Set<String> found = new LinkedHashSet<>();
+        StringBuilder withoutPrevious = new StringBuilder(source.length());
+        for (int i = 0; i < parts.length; i++) {
+            if (names[i] == null) {
+                length += parts[i].length();
+                withoutPrevious.append(parts[i]);
+            } else {
+                found.add(names[i]);
+                if (!PREVIOUS_MESSAGE.equals(names[i])) {
+                    withoutPrevious.append(parts[i]);
+                }
+            }
+        }
+        this.literalLength = length;
+        this.placeholders = Collections.unmodifiableSet(found);
+        this.contribution = withoutPrevious.toString().trim();
+        this.fingerprint = fingerprint(source);
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, stable across JVMs and restarts
+     */
+    private static String fingerprint(String source) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Parse a template into its literal segments and placeholder slots
+     *
+     * @param source Raw template text
+     * @return Compiled template
+     */
+    public static CompiledTemplate compile(String source) {
+        Objects.requireNonNull(source, "template must not be null");
+
+        List<String> parts = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int literalStart = 0;
+        int i = 0;
+        while (i < source.length()) {
+            if (source.charAt(i) == '{') {
+                int end = placeholderEnd(source, i + 1);
+                if (end > 0) {
+                    if (i > literalStart) {
+                        parts.add(source.substring(literalStart, i));
+                        names.add(null);
+                    }
+                    parts.add(source.substring(i, end + 1));
+                    names.add(source.substring(i + 1, end));
+                    i = end + 1;
+                    literalStart = i;
+                    continue;
+                }
+            }
+            i++;
+        }
+        if (literalStart < source.length()) {
+            parts.add(source.substring(literalStart));
+            names.add(null);
+        }
+
+        return new CompiledTemplate(source, parts.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the index of the closing brace of a valid placeholder name starting at from, or -1
+     */
+    private static int placeholderEnd(String source, int from) {
+        int i = from;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '}') {
+                return i > from ? i : -1;
+            }
+            if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.')) {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Render the template with a single placeholder bound
+     *
+     * @param name  Placeholder name without braces
+     * @param value Value substituted for every occurrence of the placeholder
+     * @return Rendered message
+     */
+    public String render(String name, CharSequence value) {
+        return render(name, String.valueOf(value), null);
+    }
+
+    /**
+     * Render the template with any number of named placeholders bound
+     *
+     * @param values Placeholder values keyed by name without braces
+     * @return Rendered message
+     */
+    public String render(Map<String, ? extends CharSequence> values) {
+        return render(null, null, values);
+    }
+
+    private String render(String name, String value, Map<String, ? extends CharSequence> values) {
+        // Concatenating Strings computes the exact length and copies each part once, into
+        // the array that becomes the result; StringBuilder.toString would copy it again
+        return switch (parts.length) {
+            case 0 -> "";
+            case 1 -> part(0, name, value, values);
+            case 2 -> part(0, name, value, values) + part(1, name, value, values);
+            case 3 -> part(0, name, value, values) + part(1, name, value, values) + part(2, name, value, values);
+            case 4 -> part(0, name, value, values) + part(1, name, value, values)
+                    + part(2, name, value, values) + part(3, name, value, values);
+            default -> {
+                int length = literalLength;
+                for (int i = 0; i < parts.length; i++) {
+                    if (names[i] != null) {
+                        length += part(i, name, value, values).length();
+                    }
+                }
+                StringBuilder out = new StringBuilder(length);
+                for (int i = 0; i < parts.length; i++) {
+                    out.append(part(i, name, value, values));
+                }
+                yield out.toString();
+            }
+        };
+    }
+
+    /**
+     * Text written for part i: its bound value, or the part itself for literals and unbound placeholders
+     */
+    private String part(int i, String name, String value, Map<String, ? extends CharSequence> values) {
+        if (names[i] == null) {
+            return parts[i];
+        }
+        if (values == null) {
+            return name.equals(names[i]) ? value : parts[i];
+        }
+        CharSequence bound = values.get(names[i]);
+        return bound != null ? bound.toString() : parts[i];
+    }
+
+    /**
+     * Raw template text this instance was compiled from
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * This template's own contribution to the chain: the template without
+     * the {previous_message} placeholder, trimmed
+     */
+    public String getContribution() {
+        return contribution;
+    }
+
+    /**
+     * Content hash identifying this template across instances
+     *
+     * Equal sources always give equal fingerprints, so a peer holding a template with the
+     * same fingerprint can render it without fetching the text again.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Distinct placeholder names in order of first appearance
+     */
+    public Set<String> getPlaceholders() {
+        return placeholders;
+    }
+
+    public boolean hasPlaceholder(String name) {
+        return placeholders.contains(name);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompiledTemplate other && source.equals(other.source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
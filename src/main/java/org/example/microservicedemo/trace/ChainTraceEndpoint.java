@@ -0,0 +1,45 @@
+package org.example.microservicedemo.trace;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint exposing the recorded chain traces
+ *
+ * GET /actuator/chaintraces returns the most recent events of all traces,
+ * GET /actuator/chaintraces/{traceId} the events of one trace.
+ */
+@Component
+@Endpoint(id = "chaintraces")
+@RequiredArgsConstructor
+public class ChainTraceEndpoint {
+
+    private static final int DEFAULT_LIMIT = 200;
+
+    private final ChainTraceRecorder recorder;
+
+    public record ChainTraces(double sampleRate, int capacity, long recorded, List<ChainTraceEvent> events) {
+    }
+
+    @ReadOperation
+    public ChainTraces traces(@Nullable Integer limit) {
+        return report(null, limit);
+    }
+
+    @ReadOperation
+    public ChainTraces trace(@Selector String traceId, @Nullable Integer limit) {
+        return report(traceId, limit);
+    }
+
+    private ChainTraces report(String traceId, Integer limit) {
+        int maximum = limit != null && limit > 0 ? limit : DEFAULT_LIMIT;
+        return new ChainTraces(recorder.getSampleRate(), recorder.getCapacity(), recorder.getRecorded(),
+                recorder.snapshot(traceId, maximum));
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.microservicedemo.trace;
+
+/**
+ * One recorded event of a sampled request: a chain hop or the request as a whole
+ *
+ * @param sequence       Position in the ring buffer, increasing across all events
+ * @param traceId        Trace the event belongs to, shared by every instance the request crosses
+ * @param epochMillis    Wall clock time the event was recorded
+ * @param name           Hop name (see ChainMetrics) or "METHOD /path" for a request
+ * @param thread         Thread that recorded the event
+ * @param durationMicros Duration of the hop or request
+ * @param size           Body size in bytes where known, otherwise -1
+ * @param status         HTTP status of a request event, 0 for hops
+ */
+public record ChainTraceEvent(long sequence, String traceId, long epochMillis, String name, String thread,
+                              long durationMicros, long size, int status) {
+}
@@ -0,0 +1,110 @@
+package org.example.microservicedemo.trace;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Starts a chain trace for sampled /api and /internal requests
+ *
+ * Client requests are sampled here. Internal requests follow the decision their caller
+ * sent in X-Chain-Trace-Id; the header is ignored on /api requests, so clients cannot
+ * force tracing and flood the ring buffer.
+ *
+ * The trace is attached to the request thread, and again to the thread of the async
+ * dispatch that writes the response, so every hop recorded while handling the request is
+ * part of it. The request itself is recorded once its response is complete.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChainTraceFilter extends OncePerRequestFilter {
+
+    private static final String TRACE_ATTRIBUTE = ChainTraceFilter.class.getName() + ".traceId";
+
+    private final ChainTraceRecorder recorder;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") && !path.startsWith("/internal/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            // Response of an async request: only carry its trace to this thread
+            String traceId = (String) request.getAttribute(TRACE_ATTRIBUTE);
+            if (traceId == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            String previous = recorder.attach(traceId);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                recorder.restore(previous);
+            }
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String parentTraceId = path.startsWith("/internal/") ? request.getHeader(ChainTraceRecorder.TRACE_HEADER) : null;
+        String traceId = recorder.startTrace(parentTraceId);
+        if (traceId == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        request.setAttribute(TRACE_ATTRIBUTE, traceId);
+        String previous = recorder.attach(traceId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            recorder.restore(previous);
+
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        recordRequest(traceId, request, response, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                recordRequest(traceId, request, response, start);
+            }
+        }
+    }
+
+    private void recordRequest(String traceId, HttpServletRequest request, HttpServletResponse response,
+                               long start) {
+        recorder.recordRequest(traceId, request.getMethod() + " " + request.getRequestURI(),
+                System.nanoTime() - start, request.getContentLengthLong(), response.getStatus());
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.microservicedemo.trace;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free in-memory record of sampled chain traces
+ *
+ * Replaces per-hop INFO logging as the way to see what a request did. A fraction of
+ * incoming requests (sample-rate) get a trace id, held in a thread local while they run
+ * and carried to async executor tasks and to downstream instances in the X-Chain-Trace-Id
+ * header, so a request is traced on every instance it crosses. Only internal requests
+ * carry a trace id in; client requests are always sampled here. Unsampled requests cost
+ * one thread local read per hop.
+ *
+ * Events go into a ring buffer of capacity slots (rounded up to a power of two). Writers
+ * claim a sequence with one atomic increment and publish into its slot, overwriting the
+ * oldest event; nothing blocks. Readers skip slots overwritten while they were reading.
+ */
+@Component
+@Slf4j
+public class ChainTraceRecorder {
+
+    public static final String TRACE_HEADER = "X-Chain-Trace-Id";
+
+    // Upper bound on accepted trace ids, so a caller cannot make us store large headers
+    private static final int MAXIMUM_TRACE_ID_LENGTH = 32;
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    @Value("${services.trace.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${services.trace.capacity:4096}")
+    private int capacity;
+
+    private AtomicReferenceArray<ChainTraceEvent> slots;
+    private int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+
+        log.info("Chain trace recorder initialized with sampleRate={}, capacity={}", sampleRate, size);
+    }
+
+    /**
+     * Decide whether an incoming request is traced
+     *
+     * @param parentTraceId Trace id an upstream instance sent with an internal request, or null
+     * @return Trace id to record the request under, or null when it is not sampled
+     */
+    public String startTrace(String parentTraceId) {
+        if (parentTraceId != null && !parentTraceId.isEmpty()
+                && parentTraceId.length() <= MAXIMUM_TRACE_ID_LENGTH) {
+            // The upstream instance sampled this request, so follow its decision
+            return parentTraceId;
+        }
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() | 1L);
+    }
+
+    /**
+     * @return Trace of the request running on this thread, or null
+     */
+    public String currentTrace() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Make traceId the current trace of this thread
+     *
+     * @return The previous trace, to pass to restore
+     */
+    public String attach(String traceId) {
+        String previous = CURRENT.get();
+        CURRENT.set(traceId);
+        return previous;
+    }
+
+    public void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Record a hop of the current trace, if this thread runs a sampled request
+     */
+    public void recordHop(String hop, long durationNanos, long size) {
+        String traceId = CURRENT.get();
+        if (traceId != null) {
+            append(traceId, hop, durationNanos, size, 0);
+        }
+    }
+
+    /**
+     * Record a complete request of a sampled trace
+     */
+    public void recordRequest(String traceId, String name, long durationNanos, long size, int status) {
+        append(traceId, name, durationNanos, size, status);
+    }
+
+    private void append(String traceId, String name, long durationNanos, long size, int status) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.lazySet((int) (sequence & mask), new ChainTraceEvent(sequence, traceId, System.currentTimeMillis(),
+                name, Thread.currentThread().getName(), TimeUnit.NANOSECONDS.toMicros(durationNanos), size, status));
+    }
+
+    /**
+     * Most recent events first
+     *
+     * @param traceId Only events of this trace, or null for all
+     * @param limit   Maximum number of events returned
+     */
+    public List<ChainTraceEvent> snapshot(String traceId, int limit) {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - slots.length());
+
+        List<ChainTraceEvent> events = new ArrayList<>(Math.min(limit, (int) (end - start)));
+        for (long sequence = end - 1; sequence >= start && events.size() < limit; sequence--) {
+            ChainTraceEvent event = slots.get((int) (sequence & mask));
+            // Not yet published, or already overwritten by a newer event
+            if (event == null || event.sequence() != sequence) {
+                continue;
+            }
+            if (traceId == null || traceId.equals(event.traceId())) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Carry the current trace of the submitting thread to an executor task
+     */
+    public TaskDecorator taskDecorator() {
+        return task -> {
+            String traceId = CURRENT.get();
+            if (traceId == null) {
+                return task;
+            }
+            return () -> {
+                String previous = attach(traceId);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            };
+        };
+    }
+
+    /**
+     * Pass the current trace on to the downstream instance
+     */
+    public ClientHttpRequestInterceptor clientInterceptor() {
+        return (request, body, execution) -> {
+            String traceId = CURRENT.get();
+            if (traceId != null) {
+                request.getHeaders().set(TRACE_HEADER, traceId);
+            }
+            return execution.execute(request, body);
+        };
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return Events recorded since startup, including those already overwritten
+     */
+    public long getRecorded() {
+        return nextSequence.get();
+    }
+}
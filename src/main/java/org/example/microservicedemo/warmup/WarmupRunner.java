@@ -0,0 +1,189 @@
+package org.example.microservicedemo.warmup;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.microservicedemo.client.DownstreamGuard;
+import org.example.microservicedemo.concurrent.AdaptiveConcurrencyLimiter;
+import org.example.microservicedemo.model.ServiceBRequest;
+import org.example.microservicedemo.model.ServiceCRequest;
+import org.example.microservicedemo.service.MessageResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Startup warm-up through the real request paths, finished before the instance reports ready
+ *
+ * Sends the configured number of synthetic requests to this instance over HTTP from concurrency
+ * threads. Half are GET /api/message, for distinct users so the response cache does not
+ * short-cut them; the rest go to the Service B and C internal endpoints. This lets C2
+ * compile the controllers, MessageService, Jackson and the RestClient paths. It also opens
+ * up to concurrency pooled connections to the configured Service B and Service C.
+ *
+ * Runs as an ApplicationRunner. Tomcat is already serving at that point, but Spring Boot
+ * only switches readiness to ACCEPTING_TRAFFIC once runners have returned. Until then
+ * /actuator/health/readiness reports OUT_OF_SERVICE and load balancers keep real traffic
+ * away. Failed requests are counted, not retried. The warm-up ends after timeout even if
+ * requests are outstanding, so a slow or unreachable downstream cannot hold readiness back.
+ * Warm-up requests carry X-Warmup and are not recorded by traffic capture.
+ *
+ * The warm-up goes through the concurrency limiter, response cache, circuit breakers and
+ * hedgers like real traffic, so their code is compiled too. Afterwards all of them forget
+ * what the synthetic requests taught them: the limiter starts again from its initial limit
+ * (at warm-up concurrency, or with downstream failures, it only learns to shrink), the
+ * breakers close (Service B and C are often not reachable yet at startup), hedgers drop
+ * latencies measured over loopback, and the cache is emptied of the warmup-N users.
+ *
+ * On timeout no further requests are started, but a blocked HTTP read cannot be
+ * interrupted, so requests already in flight may still overlap real traffic.
+ *
+ * Metrics:
+ * - chain.warmup.duration: how long the warm-up took (0 until it has finished)
+ * - chain.warmup.requests: warm-up requests sent, tagged by outcome (success|failure)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    public static final String WARMUP_HEADER = "X-Warmup";
+
+    private final ApplicationContext applicationContext;
+    private final RestClient.Builder restClientBuilder;
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final MessageResponseCache responseCache;
+    private final List<DownstreamGuard> downstreamGuards;
+
+    @Value("${services.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${services.warmup.requests:2000}")
+    private int requests;
+
+    @Value("${services.warmup.concurrency:4}")
+    private int concurrency;
+
+    @Value("${services.warmup.timeout:30s}")
+    private Duration timeout;
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long durationNanos;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled || requests <= 0) {
+            return;
+        }
+        // No port to send to in tests with a mock web environment, or without a web server
+        if (!(applicationContext instanceof WebServerApplicationContext webContext)
+                || webContext.getWebServer() == null || webContext.getWebServer().getPort() <= 0) {
+            log.debug("Skipping warm-up, no web server is listening");
+            return;
+        }
+
+        TimeGauge.builder("chain.warmup.duration", this, TimeUnit.NANOSECONDS, runner -> runner.durationNanos)
+                .description("Time taken by the startup warm-up")
+                .register(meterRegistry);
+        FunctionCounter.builder("chain.warmup.requests", succeeded, LongAdder::sum)
+                .description("Warm-up requests sent at startup")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        FunctionCounter.builder("chain.warmup.requests", failed, LongAdder::sum)
+                .description("Warm-up requests sent at startup")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+
+        int port = webContext.getWebServer().getPort();
+        RestClient client = restClientBuilder.clone()
+                .baseUrl("http://localhost:" + port)
+                .defaultHeader(WARMUP_HEADER, "true")
+                .build();
+
+        log.info("Warming up with {} requests from {} threads, timeout {}", requests, concurrency, timeout);
+
+        long start = System.nanoTime();
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("warmup-");
+        threadFactory.setDaemon(true);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, threadFactory);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                int request;
+                while (!stopped.get() && (request = next.getAndIncrement()) < requests) {
+                    try {
+                        send(client, request);
+                        succeeded.increment();
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                        log.debug("Warm-up request {} failed: {}", request, e.getMessage());
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        boolean finished = workers.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (!finished) {
+            // Interrupts do not reach a blocked HTTP read, so stop the loops explicitly
+            stopped.set(true);
+            workers.shutdownNow();
+            log.warn("Warm-up timed out after {}; requests still in flight may overlap real traffic", timeout);
+        }
+        durationNanos = System.nanoTime() - start;
+
+        // Real traffic should not start from what the synthetic requests taught
+        concurrencyLimiter.reset();
+        downstreamGuards.forEach(DownstreamGuard::reset);
+        responseCache.invalidateAll();
+
+        log.info("Warm-up {} in {} ms: {} requests succeeded, {} failed",
+                finished ? "completed" : "timed out", TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                succeeded.sum(), failed.sum());
+    }
+
+    /**
+     * One request of the mix: every other request is a full chain, the rest exercise Service B and C alone
+     */
+    private void send(RestClient client, int request) {
+        switch (request % 4) {
+            case 1 -> client.post()
+                    .uri("/internal/service-b/append")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-Internal-Request", "true")
+                    .body(ServiceBRequest.builder().currentMessage("Hello warmup-" + request + "!").build())
+                    .retrieve()
+                    .toBodilessEntity();
+            case 3 -> client.post()
+                    .uri("/internal/service-c/finalize")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("X-Internal-Request", "true")
+                    .body(ServiceCRequest.builder().currentMessage("Hello warmup-" + request + "!").build())
+                    .retrieve()
+                    .toBodilessEntity();
+            default -> client.get()
+                    .uri("/api/message?user={user}", "warmup-" + request)
+                    .retrieve()
+                    .toBodilessEntity();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.microservicedemo.benchmark;
+
+import org.example.microservicedemo.MicroserviceDemoApplication;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.service.MessageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageService.processServiceA with services.use-rest-client=false
+ *
+ * Measures the chain itself (templates, links, response assembly) without HTTP. Logging
+ * is raised to WARN so the per-request INFO lines do not dominate the result.
+ * Run with: mvn -Pjmh -DskipTests verify -Djmh.args="DirectChainBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirectChainBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+
+    // Non-final so the JIT cannot fold the input
+    private String user = "john";
+
+    @Setup
+    public void setUp() {
+        // Passed as command line arguments so they take precedence over application.yml
+        context = new SpringApplicationBuilder(MicroserviceDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--services.use-rest-client=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.example.microservicedemo=WARN");
+        messageService = context.getBean(MessageService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MessageResponse processServiceA() {
+        return messageService.processServiceA(user);
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.microservicedemo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.example.microservicedemo.MicroserviceDemoApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Load comparison of the platform and virtual execution modes
+ *
+ * Starts the application once per mode with Service B pointing at itself and Service C
+ * pointing at a stub that answers after a fixed delay, then fires a burst of concurrent
+ * GET /api/message requests and reports throughput, failures and latency percentiles.
+ *
+ * Run with: mvn -Pload-test -DskipTests verify
+ * Options:  -Dload-test.args="--concurrency=2000 --requests=4000 --delay-ms=100 --modes=platform,virtual"
+ */
+public class ExecutionModeBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", String.valueOf(concurrency * 2)));
+        int delayMs = Integer.parseInt(options.getOrDefault("delay-ms", "50"));
+        List<String> modes = Arrays.asList(options.getOrDefault("modes", "platform,virtual").split(","));
+
+        HttpServer serviceCStub = startServiceCStub(delayMs);
+        String serviceCUrl = "http://localhost:" + serviceCStub.getAddress().getPort();
+
+        List<String> report = new ArrayList<>();
+        try {
+            for (String mode : modes) {
+                report.add(runMode(mode.trim(), serviceCUrl, concurrency, requests));
+            }
+        } finally {
+            serviceCStub.stop(0);
+        }
+
+        System.out.printf("%nExecution mode comparison: concurrency=%d, requests=%d, service C delay=%dms%n",
+                concurrency, requests, delayMs);
+        System.out.printf("%-10s %10s %8s %8s %8s %8s %8s %8s%n",
+                "mode", "req/s", "ok", "failed", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        report.forEach(System.out::println);
+    }
+
+    private static String runMode(String mode, String serviceCUrl, int concurrency, int requests) throws Exception {
+        int port = freePort();
+        // Passed as command line arguments so they take precedence over application.yml
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MicroserviceDemoApplication.class)
+                .run("--server.port=" + port,
+                        "--server.tomcat.max-connections=" + Math.max(8192, concurrency * 2),
+                        "--services.execution-mode=" + mode,
+                        "--services.use-rest-client=true",
+                        "--services.use-async=true",
+                        "--services.service-b.url=http://localhost:" + port,
+                        // Keep the loopback hop to Service B instead of calling it in-process
+                        "--services.short-circuit.enabled=false",
+                        // Warmed up below, against the slow Service C stub
+                        "--services.warmup.enabled=false",
+                        "--services.service-c.url=" + serviceCUrl,
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.example.microservicedemo=ERROR");
+
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientThreads)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            URI uri = URI.create("http://localhost:" + port + "/api/message?user=bench");
+
+            // Warm up JIT and connections before measuring
+            fire(client, uri, Math.min(concurrency, 200), Math.min(requests, 400));
+
+            Result result = fire(client, uri, concurrency, requests);
+            return String.format("%-10s %10.1f %8d %8d %8d %8d %8d %8d", mode, result.throughput(),
+                    result.ok(), result.failed(), result.percentile(50), result.percentile(90),
+                    result.percentile(99), result.percentile(100));
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Keep concurrency requests in flight until requests have completed
+     */
+    private static Result fire(HttpClient client, URI uri, int concurrency, int requests) throws InterruptedException {
+        long[] latencies = new long[requests];
+        int[] statuses = new int[requests];
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> calls = new ArrayList<>(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+            calls.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies[index] = (System.nanoTime() - sent) / 1_000_000;
+                        statuses[index] = error == null ? response.statusCode() : -1;
+                        inFlight.release();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+        long elapsedNanos = System.nanoTime() - start;
+
+        int ok = (int) Arrays.stream(statuses).filter(status -> status == 200).count();
+        Arrays.sort(latencies);
+        return new Result(latencies, ok, requests - ok, requests * 1_000_000_000.0 / elapsedNanos);
+    }
+
+    /**
+     * Minimal stand-in for Service C that answers after a fixed delay
+     */
+    private static HttpServer startServiceCStub(int delayMs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/internal/service-c/finalize", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                JsonNode request = MAPPER.readTree(body);
+                Thread.sleep(delayMs);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("applicationName", "service-c-stub");
+                response.put("message", request.path("currentMessage").asText() + " Your account is ready!");
+                response.put("contribution", "Your account is ready!");
+                response.put("timestamp", Instant.now().toString());
+
+                byte[] bytes = MAPPER.writeValueAsString(response).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(503, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private record Result(long[] sortedLatencies, int ok, int failed, double throughput) {
+
+        long percentile(int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.microservicedemo.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.example.microservicedemo.model.ChainLink;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.model.ServiceBResponse;
+import org.example.microservicedemo.serialization.MessageResponseSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the chain models, configured like the application's ObjectMapper
+ *
+ * Run with: mvn -Pjmh -DskipTests verify -Djmh.args="SerializationBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper fragmentObjectMapper;
+    private ChainLink chainLink;
+    private ServiceBResponse serviceBResponse;
+    private MessageResponse messageResponse;
+    private byte[] serviceBResponseJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // Same defaults as Spring Boot's auto-configured ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        // Plus the application's MessageResponse serializer, as registered by @JsonComponent
+        fragmentObjectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new SimpleModule()
+                        .addSerializer(MessageResponse.class, new MessageResponseSerializer()))
+                .build();
+
+        Instant now = Instant.now();
+        ChainLink serviceA = link("service-a", "Hello john!", now);
+        ChainLink serviceB = link("service-b", "Welcome to our system.", now);
+        ChainLink serviceC = link("service-c", "Your account is ready!", now);
+        String message = "Hello john! Welcome to our system. Your account is ready!";
+
+        chainLink = serviceB;
+        serviceBResponse = ServiceBResponse.builder()
+                .applicationName("Microservice Chain")
+                .message(message)
+                .chain(List.of(serviceB, serviceC))
+                .build();
+        messageResponse = MessageResponse.builder()
+                .applicationName("Microservice Chain")
+                .message(message)
+                .chain(List.of(serviceA, serviceB, serviceC))
+                .complete(true)
+                .totalLength(message.length())
+                .processingTimeMs(12L)
+                .build();
+        serviceBResponseJson = objectMapper.writeValueAsBytes(serviceBResponse);
+    }
+
+    private static ChainLink link(String service, String contribution, Instant timestamp) {
+        return ChainLink.builder()
+                .service(service)
+                .applicationName("Microservice Chain")
+                .contribution(contribution)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeChainLink() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(chainLink);
+    }
+
+    @Benchmark
+    public byte[] writeServiceBResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(serviceBResponse);
+    }
+
+    @Benchmark
+    public byte[] writeMessageResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(messageResponse);
+    }
+
+    @Benchmark
+    public byte[] writeMessageResponseFragments() throws JsonProcessingException {
+        return fragmentObjectMapper.writeValueAsBytes(messageResponse);
+    }
+
+    @Benchmark
+    public ServiceBResponse readServiceBResponse() throws IOException {
+        // What Service A does with every Service B reply
+        return objectMapper.readValue(serviceBResponseJson, ServiceBResponse.class);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.microservicedemo.benchmark;
+
+import org.example.microservicedemo.template.CompiledTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template rendering as done by MessageService, against the String.replace it replaced
+ *
+ * Uses the default templates from application.yml.
+ * Run with: mvn -Pjmh -DskipTests verify -Djmh.args="TemplateRenderBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderBenchmark {
+
+    private static final String SERVICE_A_TEMPLATE = "Hello {user}!";
+    private static final String SERVICE_B_TEMPLATE = "{previous_message} Welcome to our system.";
+
+    private CompiledTemplate serviceATemplate;
+    private CompiledTemplate serviceBTemplate;
+
+    // Non-final so the JIT cannot fold the inputs
+    private String user = "john";
+    private String previousMessage = "Hello john!";
+
+    @Setup
+    public void setUp() {
+        serviceATemplate = CompiledTemplate.compile(SERVICE_A_TEMPLATE);
+        serviceBTemplate = CompiledTemplate.compile(SERVICE_B_TEMPLATE);
+    }
+
+    @Benchmark
+    public String serviceACompiled() {
+        return serviceATemplate.render(CompiledTemplate.USER, user);
+    }
+
+    @Benchmark
+    public String serviceAStringReplace() {
+        return SERVICE_A_TEMPLATE.replace("{user}", user);
+    }
+
+    @Benchmark
+    public String serviceBCompiled() {
+        return serviceBTemplate.render(CompiledTemplate.PREVIOUS_MESSAGE, previousMessage);
+    }
+
+    @Benchmark
+    public String serviceBStringReplace() {
+        return SERVICE_B_TEMPLATE.replace("{previous_message}", previousMessage);
+    }
+
+    @Benchmark
+    public String serviceBContributionStringReplace() {
+        // Contribution as MessageService computed it before templates were compiled
+        return SERVICE_B_TEMPLATE.replace("{previous_message}", "").trim();
+    }
+
+    @Benchmark
+    public String serviceBContributionCompiled() {
+        return serviceBTemplate.getContribution();
+    }
+}
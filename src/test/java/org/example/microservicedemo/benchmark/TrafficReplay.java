@@ -0,0 +1,288 @@
+package org.example.microservicedemo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.example.microservicedemo.capture.CapturedRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays captured traffic, or a Postman collection, against a running instance
+ *
+ * The workload is either a capture file written with services.capture.enabled=true, replayed
+ * at its original arrival times divided by --speed, or the requests of a Postman collection
+ * sent at a constant --rate. Arrival is open loop: each request is sent at its scheduled time
+ * whether or not earlier ones have completed, and latency is measured from that time, so a
+ * slow server shows up as latency instead of as a lower request rate. Latency percentiles are
+ * reported per endpoint (method and path) from HdrHistograms.
+ *
+ * Run with: mvn -Pload-test -DskipTests verify -Dload-test.main=org.example.microservicedemo.benchmark.TrafficReplay
+ * Options:  -Dload-test.args="--file=traffic-capture.jsonl --target=http://localhost:8080 --speed=2"
+ *           -Dload-test.args="--postman=postman_collection.json --environment=postman_environment.json
+ *                             --rate=200 --iterations=50"
+ */
+public class TrafficReplay {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{([^}]+)}}");
+
+    // Latencies are recorded in microseconds, up to one minute
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    /**
+     * A request to send offsetNanos after the start of the replay
+     */
+    record Scheduled(long offsetNanos, String method, String uri, String body) {
+
+        String endpoint() {
+            int query = uri.indexOf('?');
+            return method + " " + (query < 0 ? uri : uri.substring(0, query));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String target = options.getOrDefault("target", "http://localhost:8080");
+
+        List<Scheduled> workload;
+        if (options.containsKey("file")) {
+            double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+            workload = readCapture(Path.of(options.get("file")), speed);
+        } else if (options.containsKey("postman")) {
+            workload = readPostman(Path.of(options.get("postman")),
+                    options.containsKey("environment") ? Path.of(options.get("environment")) : null,
+                    Double.parseDouble(options.getOrDefault("rate", "50")),
+                    Integer.parseInt(options.getOrDefault("iterations", "1")));
+        } else {
+            throw new IllegalArgumentException("Either --file=<capture.jsonl> or --postman=<collection.json> is required");
+        }
+
+        if (workload.isEmpty()) {
+            System.out.println("Nothing to replay");
+            return;
+        }
+
+        Map<String, Endpoint> endpoints = replay(target, workload);
+        report(target, workload, endpoints);
+    }
+
+    /**
+     * Read a capture file, scaling its arrival offsets by 1/speed
+     */
+    static List<Scheduled> readCapture(Path file, double speed) throws IOException {
+        List<Scheduled> workload = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                CapturedRequest request = MAPPER.readValue(line, CapturedRequest.class);
+                long offsetNanos = (long) (TimeUnit.MILLISECONDS.toNanos(request.offsetMs()) / speed);
+                workload.add(new Scheduled(offsetNanos, request.method(), request.uri(), request.body()));
+            }
+        }
+
+        // Requests are written in completion order
+        workload.sort(Comparator.comparingLong(Scheduled::offsetNanos));
+        long first = workload.isEmpty() ? 0 : workload.get(0).offsetNanos();
+        return workload.stream()
+                .map(request -> new Scheduled(request.offsetNanos() - first, request.method(), request.uri(),
+                        request.body()))
+                .toList();
+    }
+
+    /**
+     * Read the requests of a Postman collection, in collection order, repeated iterations times
+     *
+     * {{variables}} are resolved from the collection and then the environment; the resolved
+     * base URL is dropped so requests go to the replay target.
+     */
+    static List<Scheduled> readPostman(Path collection, Path environment, double rate, int iterations)
+            throws IOException {
+        JsonNode root = MAPPER.readTree(collection.toFile());
+
+        Map<String, String> variables = new HashMap<>();
+        root.path("variable").forEach(variable ->
+                variables.put(variable.path("key").asText(), variable.path("value").asText()));
+        if (environment != null) {
+            MAPPER.readTree(environment.toFile()).path("values").forEach(variable -> {
+                if (variable.path("enabled").asBoolean(true)) {
+                    variables.put(variable.path("key").asText(), variable.path("value").asText());
+                }
+            });
+        }
+
+        List<JsonNode> requests = new ArrayList<>();
+        collectRequests(root.path("item"), requests);
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        List<Scheduled> workload = new ArrayList<>(requests.size() * iterations);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (JsonNode request : requests) {
+                JsonNode url = request.path("url");
+                String raw = resolve(url.isTextual() ? url.asText() : url.path("raw").asText(), variables);
+                String body = request.path("body").path("raw").asText(null);
+
+                workload.add(new Scheduled(workload.size() * intervalNanos, request.path("method").asText("GET"),
+                        pathAndQuery(raw), body == null ? null : resolve(body, variables)));
+            }
+        }
+        return workload;
+    }
+
+    private static void collectRequests(JsonNode items, List<JsonNode> requests) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collectRequests(item.path("item"), requests);
+            } else if (item.has("request")) {
+                requests.add(item.path("request"));
+            }
+        }
+    }
+
+    private static String resolve(String text, Map<String, String> variables) {
+        Matcher matcher = VARIABLE.matcher(text);
+        StringBuilder resolved = new StringBuilder();
+        while (matcher.find()) {
+            String value = variables.getOrDefault(matcher.group(1).trim(), matcher.group());
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    private static String pathAndQuery(String url) {
+        URI uri = URI.create(url.replace(" ", "%20"));
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+    }
+
+    /**
+     * Send every request at its scheduled time and wait for all of them to complete
+     */
+    private static Map<String, Endpoint> replay(String target, List<Scheduled> workload) {
+        Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientThreads)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            List<CompletableFuture<Void>> calls = new ArrayList<>(workload.size());
+            long start = System.nanoTime();
+            for (Scheduled request : workload) {
+                long intended = start + request.offsetNanos();
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Endpoint endpoint = endpoints.computeIfAbsent(request.endpoint(), name -> new Endpoint());
+                calls.add(client.sendAsync(toHttpRequest(target, request), HttpResponse.BodyHandlers.discarding())
+                        .handle((response, error) -> {
+                            endpoint.record(System.nanoTime() - intended, error == null ? response.statusCode() : -1);
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).join();
+        }
+        return endpoints;
+    }
+
+    private static HttpRequest toHttpRequest(String target, Scheduled request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target + request.uri()))
+                .timeout(Duration.ofSeconds(60));
+        if (request.body() != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(request.method(), HttpRequest.BodyPublishers.ofString(request.body()));
+        } else {
+            builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    private static void report(String target, List<Scheduled> workload, Map<String, Endpoint> endpoints) {
+        double seconds = Math.max(1, workload.get(workload.size() - 1).offsetNanos()) / 1e9;
+        System.out.printf("%nReplayed %d requests against %s over %.1fs (offered %.1f req/s)%n",
+                workload.size(), target, seconds, workload.size() / seconds);
+        System.out.printf("%-45s %8s %8s %8s %8s %9s %9s %9s %9s %9s%n", "endpoint", "count", "2xx", "non-2xx",
+                "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        new TreeMap<>(endpoints).forEach((name, endpoint) -> {
+            Histogram latencies = endpoint.latencies;
+            System.out.printf("%-45s %8d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+                    latencies.getTotalCount(), endpoint.ok.sum(), endpoint.failed.sum(), endpoint.errors.sum(),
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()));
+        });
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Latencies and outcomes of one endpoint
+     */
+    private static final class Endpoint {
+
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, int status) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_LATENCY_MICROS));
+            if (status < 0) {
+                errors.increment();
+            } else if (status / 100 == 2) {
+                ok.increment();
+            } else {
+                failed.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.microservicedemo.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrafficReplayTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysCapturesInArrivalOrderFromTheFirstRequest() throws Exception {
+        // Written in completion order: the slow template update arrived first
+        Path capture = Files.writeString(directory.resolve("capture.jsonl"), """
+                {"request_id":"capture-2","offset_ms":1200,"method":"GET","uri":"/api/message?user=bob","status":200}
+                {"request_id":"capture-1","offset_ms":1000,"method":"PUT","uri":"/api/service-a/message","body":"{\\"template\\":\\"Hi {user}!\\"}","status":200}
+
+                {"request_id":"capture-3","offset_ms":1600,"method":"GET","uri":"/api/message?user=ann","status":200}
+                """);
+
+        List<TrafficReplay.Scheduled> workload = TrafficReplay.readCapture(capture, 2);
+
+        assertThat(workload).extracting(TrafficReplay.Scheduled::offsetNanos)
+                .containsExactly(0L, TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(300));
+        assertThat(workload).extracting(TrafficReplay.Scheduled::uri)
+                .containsExactly("/api/service-a/message", "/api/message?user=bob", "/api/message?user=ann");
+        assertThat(workload.get(0).body()).isEqualTo("{\"template\":\"Hi {user}!\"}");
+        assertThat(workload.get(1).body()).isNull();
+        assertThat(workload.get(1).endpoint()).isEqualTo("GET /api/message");
+    }
+
+    @Test
+    void resolvesPostmanVariablesAndSpacesRequestsAtTheRate() throws Exception {
+        Path collection = Files.writeString(directory.resolve("collection.json"), """
+                {
+                  "variable": [
+                    {"key": "baseUrl", "value": "http://example.com:9999"},
+                    {"key": "user", "value": "collection-user"}
+                  ],
+                  "item": [
+                    {"name": "Get message", "request": {"method": "GET", "url": {"raw": "{{baseUrl}}/api/message?user={{user}}"}}},
+                    {"name": "Templates", "item": [
+                      {"name": "Update", "request": {"method": "PUT", "url": "{{baseUrl}}/api/service-a/message",
+                        "body": {"mode": "raw", "raw": "{\\"template\\": \\"{{greeting}} {user}!\\"}"}}}
+                    ]},
+                    {"name": "Append", "request": {"method": "POST", "url": "{{baseUrl}}/internal/service-b/append",
+                      "body": {"mode": "raw", "raw": "{\\"currentMessage\\": \\"{{missing}}\\"}"}}},
+                    {"name": "Default method", "request": {"url": "{{baseUrl}}/api/message"}}
+                  ]
+                }
+                """);
+        Path environment = Files.writeString(directory.resolve("environment.json"), """
+                {
+                  "values": [
+                    {"key": "user", "value": "John Doe", "enabled": true},
+                    {"key": "greeting", "value": "Hey", "enabled": true},
+                    {"key": "missing", "value": "ignored", "enabled": false}
+                  ]
+                }
+                """);
+
+        List<TrafficReplay.Scheduled> workload = TrafficReplay.readPostman(collection, environment, 100, 2);
+
+        assertThat(workload).hasSize(8);
+        assertThat(workload).extracting(TrafficReplay.Scheduled::offsetNanos)
+                .containsExactly(0L, 10_000_000L, 20_000_000L, 30_000_000L, 40_000_000L, 50_000_000L,
+                        60_000_000L, 70_000_000L);
+        // The environment wins over the collection, and the base URL is left to the replay target
+        assertThat(workload.get(0).method()).isEqualTo("GET");
+        assertThat(workload.get(0).uri()).isEqualTo("/api/message?user=John%20Doe");
+        assertThat(workload.get(1).method()).isEqualTo("PUT");
+        assertThat(workload.get(1).uri()).isEqualTo("/api/service-a/message");
+        assertThat(workload.get(1).body()).isEqualTo("{\"template\": \"Hey {user}!\"}");
+        // Unknown and disabled variables are sent as written
+        assertThat(workload.get(2).body()).isEqualTo("{\"currentMessage\": \"{{missing}}\"}");
+        assertThat(workload.get(3).method()).isEqualTo("GET");
+        assertThat(workload.get(3).uri()).isEqualTo("/api/message");
+        assertThat(workload.get(4)).usingRecursiveComparison().ignoringFields("offsetNanos").isEqualTo(workload.get(0));
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.microservicedemo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.example.microservicedemo.model.ChainLink;
+import org.example.microservicedemo.model.ServiceBRequest;
+import org.example.microservicedemo.model.ServiceBResponse;
+import org.example.microservicedemo.model.ServiceCResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost and size of the internal hop bodies in each wire format
+ *
+ * Mappers are configured like the application's converters (see WireFormatConfig). Bytes on
+ * the wire per body are printed once per format at setup.
+ *
+ * Run with: mvn -Pjmh -DskipTests verify -Djmh.args="WireFormatBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private ServiceBRequest serviceBRequest;
+    private ServiceBResponse serviceBResponse;
+    private ServiceCResponse serviceCResponse;
+    private byte[] serviceBResponseBytes;
+    private byte[] serviceCResponseBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile()
+                    .factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+                    .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor()
+                    .factory(new CBORFactory())
+                    .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            // Same defaults as Spring Boot's auto-configured ObjectMapper
+            default -> Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+        };
+
+        Instant now = Instant.now();
+        String message = "Hello john! Welcome to our system. Your account is ready!";
+
+        serviceBRequest = ServiceBRequest.builder()
+                .currentMessage("Hello john!")
+                .build();
+        serviceBResponse = ServiceBResponse.builder()
+                .applicationName("Microservice Chain")
+                .message(message)
+                .chain(List.of(link("service-b", "Welcome to our system.", now),
+                        link("service-c", "Your account is ready!", now)))
+                .build();
+        serviceCResponse = ServiceCResponse.builder()
+                .applicationName("Microservice Chain")
+                .message(message)
+                .contribution("Your account is ready!")
+                .timestamp(now)
+                .build();
+
+        serviceBResponseBytes = objectMapper.writeValueAsBytes(serviceBResponse);
+        serviceCResponseBytes = objectMapper.writeValueAsBytes(serviceCResponse);
+        System.out.printf("%n%s bytes on the wire: ServiceBRequest=%d, ServiceBResponse=%d, ServiceCResponse=%d%n",
+                format, objectMapper.writeValueAsBytes(serviceBRequest).length,
+                serviceBResponseBytes.length, serviceCResponseBytes.length);
+    }
+
+    private static ChainLink link(String service, String contribution, Instant timestamp) {
+        return ChainLink.builder()
+                .service(service)
+                .applicationName("Microservice Chain")
+                .contribution(contribution)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] encodeServiceBRequest() throws IOException {
+        return objectMapper.writeValueAsBytes(serviceBRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeServiceBResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(serviceBResponse);
+    }
+
+    @Benchmark
+    public ServiceBResponse decodeServiceBResponse() throws IOException {
+        return objectMapper.readValue(serviceBResponseBytes, ServiceBResponse.class);
+    }
+
+    @Benchmark
+    public byte[] encodeServiceCResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(serviceCResponse);
+    }
+
+    @Benchmark
+    public ServiceCResponse decodeServiceCResponse() throws IOException {
+        return objectMapper.readValue(serviceCResponseBytes, ServiceCResponse.class);
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.microservicedemo.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.microservicedemo.warmup.WarmupRunner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrafficCaptureTest {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesMessageRequestsAndTemplateUpdatesToTheFile() throws Exception {
+        Path file = directory.resolve("capture.jsonl");
+        TrafficCapture capture = capture(file, true);
+        TrafficCaptureFilter filter = new TrafficCaptureFilter(capture);
+
+        send(filter, get("/api/message", "user=ann"), 200);
+        MockHttpServletRequest update = new MockHttpServletRequest("PUT", "/api/service-a/message");
+        update.setContent("{\"template\":\"Hi {user}!\"}".getBytes(StandardCharsets.UTF_8));
+        send(filter, update, 200);
+
+        // Not captured: warm-up, other endpoints and methods
+        MockHttpServletRequest warmup = get("/api/message", "user=warmup-1");
+        warmup.addHeader(WarmupRunner.WARMUP_HEADER, "true");
+        send(filter, warmup, 200);
+        send(filter, get("/actuator/health", null), 200);
+        send(filter, new MockHttpServletRequest("POST", "/internal/service-b/append"), 200);
+        send(filter, get("/api/message", "user=bob"), 429);
+
+        capture.stop();
+
+        List<CapturedRequest> captured = read(file);
+        assertThat(captured).extracting(CapturedRequest::title).containsExactly(
+                "GET /api/message?user=ann", "PUT /api/service-a/message", "GET /api/message?user=bob");
+        assertThat(captured).extracting(CapturedRequest::requestId)
+                .containsExactly("capture-1", "capture-2", "capture-3");
+        assertThat(captured).extracting(CapturedRequest::status).containsExactly(200, 200, 429);
+        assertThat(captured.get(0).body()).isNull();
+        assertThat(captured.get(1).body()).isEqualTo("{\"template\":\"Hi {user}!\"}");
+        assertThat(captured.get(1).uri()).isEqualTo("/api/service-a/message");
+        assertThat(captured.get(2).offsetMs()).isGreaterThanOrEqualTo(captured.get(0).offsetMs());
+    }
+
+    @Test
+    void capturesNothingWhenDisabled() throws Exception {
+        Path file = directory.resolve("capture.jsonl");
+        TrafficCapture capture = capture(file, false);
+        TrafficCaptureFilter filter = new TrafficCaptureFilter(capture);
+
+        send(filter, get("/api/message", "user=ann"), 200);
+        capture.stop();
+
+        assertThat(file).doesNotExist();
+    }
+
+    private static TrafficCapture capture(Path file, boolean enabled) throws IOException {
+        TrafficCapture capture = new TrafficCapture(MAPPER, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(capture, "enabled", enabled);
+        ReflectionTestUtils.setField(capture, "file", file);
+        ReflectionTestUtils.setField(capture, "queueCapacity", 16);
+        capture.start();
+        return capture;
+    }
+
+    private static MockHttpServletRequest get(String path, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setQueryString(query);
+        return request;
+    }
+
+    /**
+     * Pass a request through the filter to a handler that reads the body, as the controllers do
+     */
+    private static void send(TrafficCaptureFilter filter, MockHttpServletRequest request, int status)
+            throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.getInputStream().readAllBytes();
+                resp.setStatus(status);
+            }
+        }));
+    }
+
+    private static List<CapturedRequest> read(Path file) throws IOException {
+        List<CapturedRequest> captured = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            captured.add(MAPPER.readValue(line, CapturedRequest.class));
+        }
+        return captured;
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.microservicedemo.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionLimitInterceptorTest {
+
+    private final MockClientHttpRequest request =
+            new MockClientHttpRequest(HttpMethod.POST, URI.create("/internal/service-b/append"));
+    private final ClientHttpRequestExecution ok =
+            (sent, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+
+    @Test
+    void holdsAPermitUntilTheResponseIsClosed() throws IOException {
+        ConnectionLimitInterceptor limit = new ConnectionLimitInterceptor("Service B", 2, 100);
+
+        ClientHttpResponse first = limit.intercept(request, new byte[0], ok);
+        ClientHttpResponse second = limit.intercept(request, new byte[0], ok);
+        assertThat(limit.getLeased()).isEqualTo(2);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        first.close();
+        assertThat(limit.getLeased()).isEqualTo(1);
+
+        // Closing again does not hand out a second permit
+        first.close();
+        second.close();
+        assertThat(limit.getLeased()).isZero();
+        assertThat(limit.getMaxConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void releasesThePermitWhenTheExchangeFails() {
+        ConnectionLimitInterceptor limit = new ConnectionLimitInterceptor("Service B", 1, 100);
+
+        assertThatThrownBy(() -> limit.intercept(request, new byte[0], (sent, body) -> {
+            throw new IOException("Connection refused");
+        })).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> limit.intercept(request, new byte[0], (sent, body) -> {
+            throw new IllegalStateException("Bad request");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(limit.getLeased()).isZero();
+    }
+
+    @Test
+    void refusesExchangesOnceEveryPermitIsHeld() throws IOException {
+        ConnectionLimitInterceptor limit = new ConnectionLimitInterceptor("Service B", 1, 50);
+        AtomicInteger executed = new AtomicInteger();
+        ClientHttpRequestExecution counting = (sent, body) -> {
+            executed.incrementAndGet();
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        };
+
+        ClientHttpResponse held = limit.intercept(request, new byte[0], counting);
+
+        assertThatThrownBy(() -> limit.intercept(request, new byte[0], counting))
+                .isInstanceOf(SocketTimeoutException.class)
+                .hasMessageContaining("waiting for a connection to Service B");
+        assertThat(executed).hasValue(1);
+        assertThat(limit.getLeased()).isEqualTo(1);
+
+        held.close();
+        limit.intercept(request, new byte[0], counting).close();
+        assertThat(executed).hasValue(2);
+    }
+
+    @Test
+    void queuedExchangesProceedAsPermitsAreReleased() throws Exception {
+        ConnectionLimitInterceptor limit = new ConnectionLimitInterceptor("Service B", 1, 10_000);
+        ClientHttpResponse held = limit.intercept(request, new byte[0], ok);
+
+        CompletableFuture<ClientHttpResponse> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limit.intercept(request, new byte[0], ok);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limit.getPending() == 0 && System.nanoTime() < waitUntil) {
+            Thread.onSpinWait();
+        }
+        assertThat(limit.getPending()).isEqualTo(1);
+        assertThat(queued).isNotDone();
+
+        held.close();
+        queued.get(5, TimeUnit.SECONDS).close();
+        assertThat(limit.getPending()).isZero();
+        assertThat(limit.getLeased()).isZero();
+    }
+}
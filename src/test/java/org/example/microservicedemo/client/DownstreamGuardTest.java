@@ -0,0 +1,85 @@
+package org.example.microservicedemo.client;
+
+import org.example.microservicedemo.concurrent.CircuitBreaker;
+import org.example.microservicedemo.concurrent.RequestHedger;
+import org.example.microservicedemo.exception.CircuitBreakerOpenException;
+import org.example.microservicedemo.exception.DeadlineExceededException;
+import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamGuardTest {
+
+    @Test
+    void countsServerErrorsAndUnansweredCallsAsFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("service-b", 1.0, 2, 2, Duration.ofMinutes(1), 1);
+        DownstreamGuard guard = guard(breaker);
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw communicationError(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        })).isInstanceOf(ServiceCommunicationException.class);
+        guard.callAsync(() -> CompletableFuture.failedFuture(communicationError(
+                new ResourceAccessException("Read timed out", new SocketTimeoutException()))), false);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> guard.call(() -> "never sent"))
+                .isInstanceOf(CircuitBreakerOpenException.class);
+    }
+
+    @Test
+    void countsClientErrorsAsAnsweredCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("service-b", 0.5, 2, 2, Duration.ofMinutes(1), 1);
+        DownstreamGuard guard = guard(breaker);
+
+        for (int i = 0; i < 2; i++) {
+            guard.callAsync(() -> CompletableFuture.failedFuture(
+                    communicationError(new HttpClientErrorException(HttpStatus.BAD_REQUEST))), false);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    void localErrorsLeaveTheBreakerAsItWas() {
+        CircuitBreaker breaker = new CircuitBreaker("service-b", 0.5, 2, 2, Duration.ZERO, 1);
+        DownstreamGuard guard = guard(breaker);
+        for (int i = 0; i < 2; i++) {
+            guard.callAsync(() -> CompletableFuture.failedFuture(
+                    communicationError(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))), false);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // The trial call is abandoned locally, so it neither closes the breaker nor uses up the trial
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw new DeadlineExceededException("/internal/service-b/append");
+        })).isInstanceOf(DeadlineExceededException.class);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        guard.callAsync(() -> CompletableFuture.failedFuture(new RejectedExecutionException("Shed")), false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        assertThat(guard.call(() -> "answered")).isEqualTo("answered");
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private static DownstreamGuard guard(CircuitBreaker breaker) {
+        return new DownstreamGuard("Service B", breaker,
+                new RequestHedger(false, 0.5, Duration.ZERO, 0.0, task -> task));
+    }
+
+    private static ServiceCommunicationException communicationError(Exception cause) {
+        return new ServiceCommunicationException("Failed to communicate with Service B: " + cause.getMessage(), cause);
+    }
+}
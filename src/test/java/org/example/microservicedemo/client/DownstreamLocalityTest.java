@@ -0,0 +1,36 @@
+package org.example.microservicedemo.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownstreamLocalityTest {
+
+    @Test
+    void matchesLoopbackUrlsOnTheSamePortAndContextPath() {
+        DownstreamLocality locality = locality("/chain");
+
+        assertThat(locality.pointsAtThisInstance("http://localhost:8080/chain", 8080)).isTrue();
+        assertThat(locality.pointsAtThisInstance("http://127.0.0.1:8080/chain/", 8080)).isTrue();
+        assertThat(locality.pointsAtThisInstance("http://localhost:8081/chain", 8080)).isFalse();
+        assertThat(locality.pointsAtThisInstance("http://localhost:8080", 8080)).isFalse();
+    }
+
+    @Test
+    void treatsOtherHostsAndDefaultPortsAsRemote() {
+        DownstreamLocality locality = locality("");
+
+        assertThat(locality.pointsAtThisInstance("http://localhost", 80)).isTrue();
+        assertThat(locality.pointsAtThisInstance("https://localhost", 80)).isFalse();
+        // TEST-NET-1 address, never assigned to a local interface
+        assertThat(locality.pointsAtThisInstance("http://192.0.2.1:8080", 8080)).isFalse();
+    }
+
+    private static DownstreamLocality locality(String contextPath) {
+        DownstreamLocality locality = new DownstreamLocality(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(locality, "contextPath", contextPath);
+        return locality;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.microservicedemo.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void rejectsImmediatelyOnceTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, Duration.ofSeconds(1));
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire();
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(limiter.tryAcquire()).isNull();
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        first.release(false);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    void growsAdditivelyUnderLoadAndBacksOffOnFailures() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, Duration.ofSeconds(1));
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+        permits.forEach(permit -> permit.release(false));
+        // Only the permits admitted with at least half the limit in use count as evidence
+        assertThat(limiter.getLimit()).isEqualTo(7);
+
+        limiter.tryAcquire().release(true);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        // A lone fast call on an idle limiter does not grow it
+        limiter.tryAcquire().release(false);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void slowCallsCountAsCongestion() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, 0.5, Duration.ZERO);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire().release(false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        limiter.reset();
+        assertThat(limiter.getLimit()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.microservicedemo.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensOnFailureRateAndFailsFast() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 4, 4, Duration.ofMinutes(1), 1);
+
+        for (boolean failed : new boolean[]{false, true, false}) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onComplete(failed);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onComplete(true);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void resetClosesWithAFreshWindow() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 2, 2, Duration.ofMinutes(1), 1);
+        tripOpen(breaker);
+
+        breaker.reset();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void halfOpenTrialsDecideWhetherToClose() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 2, 2, Duration.ZERO, 2);
+        tripOpen(breaker);
+
+        // Open duration elapsed: only the trial calls are let through
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onComplete(false);
+        breaker.onComplete(false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+
+        tripOpen(breaker);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onComplete(true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void releaseReturnsAnOutstandingTrialPermit() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 2, 2, Duration.ZERO, 1);
+        tripOpen(breaker);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.release();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // Released once only, however often release is called
+        breaker.release();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onComplete(false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        breaker.release();
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    private static void tripOpen(CircuitBreaker breaker) {
+        for (int i = 0; i < 2; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onComplete(true);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.microservicedemo.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoDelTaskDecoratorTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shedsOnlyAfterAStandingQueueForAFullInterval() {
+        ControlledDelay codel = new ControlledDelay(Duration.ofMillis(5), Duration.ofMillis(100));
+        long start = System.nanoTime();
+
+        // A burst with long waits in the first interval is not shed yet
+        assertThat(codel.shouldShed(50 * MS, start + 10 * MS)).isFalse();
+        assertThat(codel.shouldShed(60 * MS, start + 50 * MS)).isFalse();
+
+        // The interval's best wait exceeded the target, so long waits are shed from now on
+        assertThat(codel.shouldShed(40 * MS, start + 110 * MS)).isTrue();
+        assertThat(codel.isOverloaded()).isTrue();
+        assertThat(codel.shouldShed(8 * MS, start + 120 * MS)).isFalse();
+
+        // One short wait in the interval clears the overload at its end
+        assertThat(codel.shouldShed(1 * MS, start + 130 * MS)).isFalse();
+        assertThat(codel.shouldShed(40 * MS, start + 220 * MS)).isFalse();
+        assertThat(codel.isOverloaded()).isFalse();
+    }
+
+    @Test
+    void shedTaskFailsItsFutureInsteadOfRunning() throws Exception {
+        ControlledDelay alwaysOverloaded = new ControlledDelay(Duration.ZERO, Duration.ofNanos(1)) {
+            @Override
+            public synchronized boolean shouldShed(long delayNanos, long nowNanos) {
+                return true;
+            }
+        };
+        CoDelTaskDecorator decorator = new CoDelTaskDecorator(alwaysOverloaded);
+        Executor executor = task -> decorator.decorate(task).run();
+
+        CompletableFuture<String> sheddable = SheddableTask.supplyAsync(() -> "ran", executor);
+        assertThatThrownBy(sheddable::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(decorator.getShed()).isEqualTo(1);
+
+        // Plain runnables cannot report being dropped, so they always run
+        CompletableFuture<String> plain = CompletableFuture.supplyAsync(() -> "ran", executor);
+        assertThat(plain.get(1, TimeUnit.SECONDS)).isEqualTo("ran");
+        assertThat(decorator.getShed()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.microservicedemo.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedRateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void admitsABurstThenRefillsAtTheRate() {
+        // 10 per second: one permit every 100ms, up to 3 at once
+        KeyedRateLimiter limiter = new KeyedRateLimiter(10, 3, 64);
+        long now = 1_000_000 * MILLIS;
+
+        assertThat(limiter.tryAcquire("ann", now)).isZero();
+        assertThat(limiter.tryAcquire("ann", now)).isZero();
+        assertThat(limiter.tryAcquire("ann", now)).isZero();
+        assertThat(limiter.tryAcquire("ann", now)).isEqualTo(100 * MILLIS);
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        // Other users have their own bucket
+        assertThat(limiter.tryAcquire("bob", now)).isZero();
+
+        assertThat(limiter.tryAcquire("ann", now + 60 * MILLIS)).isEqualTo(40 * MILLIS);
+        assertThat(limiter.tryAcquire("ann", now + 100 * MILLIS)).isZero();
+        assertThat(limiter.tryAcquire("ann", now + 100 * MILLIS)).isPositive();
+
+        // Back to a full bucket after a quiet period
+        long later = now + 1000 * MILLIS;
+        assertThat(limiter.getActiveBuckets(later)).isZero();
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("ann", later)).isZero();
+        }
+        assertThat(limiter.tryAcquire("ann", later)).isPositive();
+    }
+
+    @Test
+    void staysWithinCapacityForManyDistinctKeys() {
+        KeyedRateLimiter limiter = new KeyedRateLimiter(1, 2, 64);
+        long now = 1_000_000 * MILLIS;
+
+        // Idle users are replaced without eviction
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(limiter.tryAcquire("user" + i, now + i * 2000 * MILLIS)).isZero();
+        }
+        assertThat(limiter.getEvicted()).isZero();
+        assertThat(limiter.getCapacity()).isEqualTo(64);
+
+        // Active users beyond capacity evict the bucket closest to full
+        long burst = now + 1_000_000_000 * MILLIS;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(limiter.tryAcquire("user" + i, burst + i)).isZero();
+        }
+        assertThat(limiter.getActiveBuckets(burst + 10_000)).isLessThanOrEqualTo(64);
+        assertThat(limiter.getEvicted()).isPositive();
+
+        // The most recent user keeps their bucket
+        assertThat(limiter.tryAcquire("user9999", burst + 10_000)).isZero();
+        assertThat(limiter.tryAcquire("user9999", burst + 10_000)).isPositive();
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.microservicedemo.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer<String, String> coalescer = new RequestCoalescer<>();
+
+    @Test
+    void concurrentIdenticalCallsShareOneExecution() {
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = coalescer.execute("john", () -> {
+            executions.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = coalescer.execute("john", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        CompletableFuture<String> otherKey = coalescer.execute("ann", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("ann");
+        });
+
+        pending.complete("john");
+
+        assertThat(first.join()).isEqualTo("john");
+        assertThat(second.join()).isEqualTo("john");
+        assertThat(otherKey.join()).isEqualTo("ann");
+        assertThat(executions).hasValue(2);
+        assertThat(coalescer.getFollowers()).isEqualTo(1);
+        assertThat(coalescer.getCollapseRatio()).isEqualTo(1.0 / 3);
+        assertThat(coalescer.getInFlight()).isZero();
+    }
+
+    @Test
+    void failureReachesEveryWaiterAndIsNotRemembered() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = coalescer.execute("john", () -> pending);
+        CompletableFuture<String> second = coalescer.execute("john", () -> pending);
+
+        pending.completeExceptionally(new IllegalStateException("service C down"));
+
+        assertThatThrownBy(first::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("service C down");
+
+        assertThat(coalescer.execute("john", () -> CompletableFuture.completedFuture("retried")).join())
+                .isEqualTo("retried");
+    }
+
+    @Test
+    void followersRerunFailuresPrivateToTheLeaderUnderTheirOwnContext() {
+        ThreadLocal<String> caller = new ThreadLocal<>();
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(
+                error -> error instanceof IllegalStateException,
+                task -> {
+                    String captured = caller.get();
+                    return () -> {
+                        String previous = caller.get();
+                        caller.set(captured);
+                        try {
+                            task.run();
+                        } finally {
+                            caller.set(previous);
+                        }
+                    };
+                });
+        CompletableFuture<String> leaderCall = new CompletableFuture<>();
+        AtomicReference<String> rerunBy = new AtomicReference<>();
+
+        caller.set("leader");
+        CompletableFuture<String> leader = coalescer.execute("john", () -> leaderCall);
+        caller.set("follower");
+        CompletableFuture<String> follower = coalescer.execute("john", () -> {
+            rerunBy.set(caller.get());
+            return CompletableFuture.completedFuture("follower's own");
+        });
+        caller.set("leader");
+
+        leaderCall.completeExceptionally(new IllegalStateException("leader's deadline passed"));
+
+        assertThatThrownBy(leader::join).hasRootCauseMessage("leader's deadline passed");
+        assertThat(follower.join()).isEqualTo("follower's own");
+        assertThat(rerunBy).hasValue("follower");
+        assertThat(caller.get()).isEqualTo("leader");
+        assertThat(coalescer.getReruns()).isEqualTo(1);
+
+        // Other failures are still shared
+        CompletableFuture<String> down = new CompletableFuture<>();
+        coalescer.execute("ann", () -> down);
+        CompletableFuture<String> shared = coalescer.execute("ann", () -> CompletableFuture.completedFuture("unused"));
+        down.completeExceptionally(new IllegalArgumentException("service C down"));
+        assertThatThrownBy(shared::join).hasRootCauseMessage("service C down");
+        assertThat(coalescer.getReruns()).isEqualTo(1);
+        caller.remove();
+    }
+
+    @Test
+    void cancellingOneWaiterDoesNotAffectOthers() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = coalescer.execute("john", () -> pending);
+        CompletableFuture<String> second = coalescer.execute("john", () -> pending);
+
+        first.cancel(true);
+        pending.complete("john");
+
+        assertThat(second.join()).isEqualTo("john");
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.microservicedemo.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.microservicedemo.deadline.Deadline;
+import org.example.microservicedemo.deadline.RequestDeadlines;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestHedgerTest {
+
+    @Test
+    void slowCallIsAnsweredByTheHedge() throws Exception {
+        RequestHedger hedger = new RequestHedger(true, 0.5, Duration.ofMillis(5), 1.0, task -> task);
+        warmUp(hedger);
+
+        CompletableFuture<String> stuck = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = hedger.execute(() -> attempts.incrementAndGet() == 1
+                ? stuck
+                : CompletableFuture.completedFuture("hedge"));
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("hedge");
+        assertThat(attempts).hasValue(2);
+        assertThat(hedger.getHedges()).isEqualTo(1);
+        assertThat(hedger.getWins()).isEqualTo(1);
+    }
+
+    @Test
+    void hedgeStartsUnderTheDeadlineAndTraceOfTheCaller() throws Exception {
+        RequestDeadlines deadlines = new RequestDeadlines(new SimpleMeterRegistry());
+        ChainTraceRecorder traceRecorder = new ChainTraceRecorder();
+        TaskDecorator trace = traceRecorder.taskDecorator();
+        TaskDecorator deadline = deadlines.taskDecorator();
+        RequestHedger hedger = new RequestHedger(true, 0.5, Duration.ofMillis(5), 1.0,
+                task -> deadline.decorate(trace.decorate(task)));
+        warmUp(hedger);
+
+        Deadline callerDeadline = Deadline.after(10, TimeUnit.SECONDS);
+        Deadline previousDeadline = deadlines.attach(callerDeadline);
+        String previousTrace = traceRecorder.attach("caller-trace");
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<Deadline> hedgeDeadline = new CompletableFuture<>();
+        CompletableFuture<String> hedgeTrace = new CompletableFuture<>();
+        CompletableFuture<String> result;
+        try {
+            result = hedger.execute(() -> {
+                if (attempts.incrementAndGet() == 1) {
+                    return new CompletableFuture<>();
+                }
+                hedgeDeadline.complete(deadlines.current());
+                hedgeTrace.complete(traceRecorder.currentTrace());
+                return CompletableFuture.completedFuture("hedge");
+            });
+        } finally {
+            traceRecorder.restore(previousTrace);
+            deadlines.restore(previousDeadline);
+        }
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("hedge");
+        assertThat(hedgeDeadline.get(5, TimeUnit.SECONDS)).isSameAs(callerDeadline);
+        assertThat(hedgeTrace.get(5, TimeUnit.SECONDS)).isEqualTo("caller-trace");
+    }
+
+    @Test
+    void failsOnlyWhenEveryAttemptFailed() {
+        RequestHedger hedger = new RequestHedger(true, 0.5, Duration.ofMillis(5), 1.0, task -> task);
+        warmUp(hedger);
+
+        CompletableFuture<String> result = hedger.execute(() -> CompletableFuture.supplyAsync(() -> {
+            sleep(50);
+            throw new IllegalStateException("down");
+        }));
+
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThat(hedger.getHedges()).isEqualTo(1);
+    }
+
+    @Test
+    void resetForgetsLearnedLatencies() {
+        RequestHedger hedger = new RequestHedger(true, 0.5, Duration.ofMillis(5), 1.0, task -> task);
+        warmUp(hedger);
+
+        hedger.reset();
+        assertThat(hedger.getHedgeDelayMillis()).isEqualTo(-1);
+
+        // No delay to hedge at until enough new latencies are seen
+        AtomicInteger attempts = new AtomicInteger();
+        hedger.execute(() -> {
+            attempts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertThat(attempts).hasValue(1);
+        assertThat(hedger.getHedges()).isZero();
+
+        warmUp(hedger);
+    }
+
+    @Test
+    void disabledHedgerRunsOneAttempt() {
+        RequestHedger hedger = new RequestHedger(false, 0.5, Duration.ZERO, 1.0, task -> task);
+        AtomicInteger attempts = new AtomicInteger();
+
+        hedger.execute(() -> {
+            attempts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertThat(attempts).hasValue(1);
+        assertThat(hedger.getCalls()).isZero();
+    }
+
+    private static void warmUp(RequestHedger hedger) {
+        // Enough fast calls to compute a delay and fill the hedge budget
+        for (int i = 0; i < 64; i++) {
+            hedger.execute(() -> CompletableFuture.completedFuture("fast")).join();
+        }
+        assertThat(hedger.getHedgeDelayMillis()).isEqualTo(5.0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.microservicedemo.deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.microservicedemo.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDeadlinesTest {
+
+    private final RequestDeadlines deadlines = deadlines();
+
+    @AfterEach
+    void detach() {
+        deadlines.restore(null);
+    }
+
+    @Test
+    void sendsTheRemainingBudgetAndCutsTimeouts() throws Exception {
+        ClientHttpRequestInterceptor interceptor = deadlines.clientInterceptor();
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("/internal/service-b/append"));
+        ClientHttpRequestExecution ok = (sent, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+
+        // No deadline: nothing is added and the configured timeout applies
+        interceptor.intercept(request, new byte[0], ok);
+        assertThat(request.getHeaders().containsKey(RequestDeadlines.REMAINING_HEADER)).isFalse();
+        assertThat(deadlines.timeoutMillis(10_000)).isEqualTo(10_000);
+
+        deadlines.attach(Deadline.after(500, TimeUnit.MILLISECONDS));
+        interceptor.intercept(request, new byte[0], ok);
+        long sent = Long.parseLong(request.getHeaders().getFirst(RequestDeadlines.REMAINING_HEADER));
+        assertThat(sent).isBetween(1L, 500L);
+        assertThat(deadlines.timeoutMillis(10_000)).isBetween(1, 500);
+        assertThat(deadlines.timeoutMillis(100)).isEqualTo(100);
+    }
+
+    @Test
+    void abandonsCallsOnceTheDeadlineHasPassed() {
+        ClientHttpRequestInterceptor interceptor = deadlines.clientInterceptor();
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.POST, URI.create("/internal/service-c/finalize"));
+        AtomicInteger executed = new AtomicInteger();
+
+        deadlines.attach(deadlines.fromHeader("0"));
+        assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], (sent, body) -> {
+            executed.incrementAndGet();
+            return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+        })).isInstanceOf(DeadlineExceededException.class);
+        assertThat(executed).hasValue(0);
+        assertThatThrownBy(() -> deadlines.check("service-b"))
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessageContaining("service-b");
+
+        // A downstream instance that ran out of budget answers 504
+        deadlines.attach(Deadline.after(1, TimeUnit.SECONDS));
+        assertThatThrownBy(() -> interceptor.intercept(request, new byte[0],
+                (sent, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.GATEWAY_TIMEOUT)))
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessageContaining("/internal/service-c/finalize");
+
+        assertThat(deadlines.getExceeded()).isEqualTo(3);
+    }
+
+    @Test
+    void capsBudgetsFromHeadersAtTheMaximum() {
+        assertThat(deadlines.fromHeader("250").remainingMillis()).isBetween(1L, 250L);
+        assertThat(deadlines.fromHeader("86400000").remainingMillis()).isBetween(4000L, 5000L);
+        assertThat(deadlines.fromHeader(Long.toString(Long.MAX_VALUE)).remainingMillis()).isBetween(4000L, 5000L);
+    }
+
+    @Test
+    void capsTimeoutsAtTheAsyncRequestTimeout() {
+        RequestDeadlines capped = new RequestDeadlines(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(capped, "defaultTimeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(capped, "maxTimeout", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(capped, "asyncRequestTimeout", Duration.ofSeconds(3));
+        ReflectionTestUtils.invokeMethod(capped, "init");
+
+        assertThat(capped.fromHeader("45000").remainingMillis()).isBetween(2000L, 3000L);
+        assertThat(capped.withDefaultTimeout().remainingMillis()).isBetween(2000L, 3000L);
+        assertThat(capped.fromHeader("250").remainingMillis()).isBetween(1L, 250L);
+    }
+
+    @Test
+    void carriesTheDeadlineToExecutorTasks() throws Exception {
+        Deadline deadline = deadlines.withDefaultTimeout();
+        assertThat(deadline.remainingMillis()).isBetween(1L, 2000L);
+        assertThat(deadlines.fromHeader("soon")).isNull();
+
+        deadlines.attach(deadline);
+        AtomicReference<Deadline> seen = new AtomicReference<>();
+        Runnable task = deadlines.taskDecorator().decorate(() -> seen.set(deadlines.current()));
+        deadlines.restore(null);
+
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+        assertThat(seen.get()).isSameAs(deadline);
+    }
+
+    private static RequestDeadlines deadlines() {
+        RequestDeadlines deadlines = new RequestDeadlines(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(deadlines, "enabled", true);
+        ReflectionTestUtils.setField(deadlines, "defaultTimeout", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(deadlines, "maxTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.invokeMethod(deadlines, "init");
+        return deadlines;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.microservicedemo.pipeline;
+
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.config.PipelineConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ChainPipelineTest {
+
+    @Test
+    void fusesAdjacentStagesWithTheSameLocation() {
+        ChainPipeline pipeline = pipeline(
+                stage("greet", "Hi {user}!", "user", null),
+                stage("welcome", "{previous_message} Welcome.", null, null),
+                stage("remote-1", null, null, "http://other:8080"),
+                stage("remote-2", null, null, "http://other:8080"),
+                stage("done", "{previous_message} Done.", null, null));
+
+        assertThat(pipeline.getSegments())
+                .extracting(PipelineSegment::url, PipelineSegment::stageNames)
+                .containsExactly(
+                        tuple(null, List.of("greet", "welcome")),
+                        tuple("http://other:8080", List.of("remote-1", "remote-2")),
+                        tuple(null, List.of("done")));
+        assertThat(pipeline.getRemoteUrls()).containsExactly("http://other:8080");
+    }
+
+    @Test
+    void defaultsToTheClassicChainAndKeepsClassicTemplatesAddressable() {
+        ChainPipeline pipeline = pipeline();
+
+        assertThat(pipeline.isConfigured()).isFalse();
+        assertThat(pipeline.getSegments()).singleElement()
+                .extracting(PipelineSegment::stageNames)
+                .isEqualTo(List.of("service-a", "service-b", "service-c"));
+
+        PipelineStage serviceB = pipeline.getStage("Service-B");
+        String output = serviceB.render("Hello ann!");
+        assertThat(output).isEqualTo("Hello ann! Welcome to our system.");
+        assertThat(serviceB.contribution(output, false)).isEqualTo("Welcome to our system.");
+    }
+
+    @Test
+    void firstStageReceivesTheUserUnlessToldOtherwise() {
+        ChainPipeline pipeline = pipeline(
+                stage("greet", "Hello {user}!", null, null),
+                stage("welcome", "{previous_message} Welcome.", null, null),
+                stage("sign", "{message} -- {team}", "message", null));
+
+        assertThat(pipeline.getStages()).extracting(PipelineStage::getPlaceholder)
+                .containsExactly("user", "previous_message", "message");
+        assertThat(pipeline.getStage("greet").render("ann")).isEqualTo("Hello ann!");
+
+        // The contribution follows template updates
+        PipelineStage sign = pipeline.getStage("sign");
+        assertThat(sign.contribution("Hello ann! -- {team}", false)).isEqualTo("-- {team}");
+        sign.getTemplate().updateTemplate("{message} Regards");
+        assertThat(sign.contribution("Hello ann! Regards", false)).isEqualTo("Regards");
+    }
+
+    @Test
+    void rejectsRemoteStagesForLocalUse() {
+        ChainPipeline pipeline = pipeline(stage("remote", null, null, "http://other:8080"));
+
+        assertThatThrownBy(() -> pipeline.getLocalStage("remote")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pipeline.getStage("missing")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ChainPipeline pipeline(PipelineConfig.StageDefinition... stages) {
+        MessageTemplateConfig templates = new MessageTemplateConfig();
+        templates.getServiceA().setTemplate("Hello {user}!");
+        templates.getServiceB().setTemplate("{previous_message} Welcome to our system.");
+        templates.getServiceC().setTemplate("{previous_message} Your account is ready!");
+
+        PipelineConfig config = new PipelineConfig();
+        config.setStages(List.of(stages));
+
+        ChainPipeline pipeline = new ChainPipeline(config, templates);
+        pipeline.init();
+        return pipeline;
+    }
+
+    private static PipelineConfig.StageDefinition stage(String name, String template, String placeholder, String url) {
+        PipelineConfig.StageDefinition stage = new PipelineConfig.StageDefinition();
+        stage.setName(name);
+        stage.setTemplate(template);
+        if (placeholder != null) {
+            stage.setPlaceholder(placeholder);
+        }
+        stage.setUrl(url);
+        return stage;
+    }
+}
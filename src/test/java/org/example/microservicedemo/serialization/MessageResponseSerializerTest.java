@@ -0,0 +1,103 @@
+package org.example.microservicedemo.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.example.microservicedemo.model.ChainLink;
+import org.example.microservicedemo.model.MessageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageResponseSerializerTest {
+
+    private final ObjectMapper databind = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final ObjectMapper fragments = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new SimpleModule().addSerializer(MessageResponse.class, new MessageResponseSerializer()))
+            .build();
+
+    @Test
+    void writesTheSameJsonAsBeanSerialization() throws Exception {
+        MessageResponse response = response("Hello ann!", "Welcome \"home\".");
+
+        assertThat(fragments.writeValueAsString(response)).isEqualTo(databind.writeValueAsString(response));
+        // Second write is served from the cached fragments
+        assertThat(fragments.writeValueAsString(response)).isEqualTo(databind.writeValueAsString(response));
+    }
+
+    @Test
+    void picksUpChangedContributionsAndNulls() throws Exception {
+        fragments.writeValueAsString(response("Hello ann!", "Welcome."));
+
+        MessageResponse changed = response("Hello bob!", "Welcome back.");
+        assertThat(fragments.writeValueAsString(changed)).isEqualTo(databind.writeValueAsString(changed));
+
+        MessageResponse sparse = MessageResponse.builder()
+                .chain(Arrays.asList(null, ChainLink.builder().service("service-b").build()))
+                .build();
+        assertThat(fragments.writeValueAsString(sparse)).isEqualTo(databind.writeValueAsString(sparse));
+    }
+
+    @Test
+    void formatsInstantsLikeInstantToString() {
+        char[] buffer = new char[30];
+        List<Instant> instants = new ArrayList<>(List.of(
+                Instant.EPOCH,
+                Instant.parse("2000-02-29T23:59:59Z"),
+                Instant.parse("2024-11-09T14:30:00.100Z"),
+                Instant.parse("2024-11-09T14:30:00.000001Z"),
+                Instant.parse("2024-11-09T14:30:00.000000001Z"),
+                Instant.parse("9999-12-31T23:59:59.999999999Z")));
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            instants.add(Instant.ofEpochSecond(random.nextLong(253402300800L), random.nextInt(1_000_000_000)));
+        }
+
+        for (Instant instant : instants) {
+            int length = MessageResponseSerializer.formatIsoInstant(instant, buffer);
+            assertThat(new String(buffer, 0, length)).isEqualTo(instant.toString());
+        }
+    }
+
+    @Test
+    void keepsNumericTimestampsOfTheMapper() throws Exception {
+        SimpleModule module = new SimpleModule().addSerializer(MessageResponse.class, new MessageResponseSerializer());
+        ObjectMapper numericDatabind = Jackson2ObjectMapperBuilder.json()
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        ObjectMapper numericFragments = Jackson2ObjectMapperBuilder.json()
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(module)
+                .build();
+
+        MessageResponse response = response("Hello ann!", "Welcome.");
+        assertThat(numericFragments.writeValueAsString(response)).isEqualTo(numericDatabind.writeValueAsString(response));
+    }
+
+    private static MessageResponse response(String greeting, String welcome) {
+        Instant now = Instant.parse("2024-11-09T14:30:00.123456Z");
+        return MessageResponse.builder()
+                .applicationName("Microservice Chain")
+                .message(greeting + " " + welcome)
+                .chain(List.of(
+                        ChainLink.builder().service("service-a").applicationName("Microservice Chain")
+                                .contribution(greeting).timestamp(now).build(),
+                        ChainLink.builder().service("service-b").applicationName("Microservice Chain")
+                                .contribution(welcome).timestamp(now).build()))
+                .complete(true)
+                .totalLength(greeting.length() + welcome.length() + 1)
+                .processingTimeMs(12L)
+                .build();
+    }
+}
@@ -0,0 +1,262 @@
+package org.example.microservicedemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.example.microservicedemo.client.DownstreamGuard;
+import org.example.microservicedemo.client.DownstreamLocality;
+import org.example.microservicedemo.client.ServiceBClient;
+import org.example.microservicedemo.concurrent.RequestHedger;
+import org.example.microservicedemo.config.AppConfig;
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.config.PipelineConfig;
+import org.example.microservicedemo.config.WireFormat;
+import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.example.microservicedemo.metrics.ChainMetrics;
+import org.example.microservicedemo.model.BatchItemResult;
+import org.example.microservicedemo.model.BatchMessageResponse;
+import org.example.microservicedemo.model.BatchRequest;
+import org.example.microservicedemo.model.BatchResponse;
+import org.example.microservicedemo.model.ChainLink;
+import org.example.microservicedemo.model.ErrorResponse;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.model.ServiceBRequest;
+import org.example.microservicedemo.model.ServiceBResponse;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class BatchMessageServiceTest {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    private final MessageTemplateConfig templates = templates();
+
+    @Test
+    void reportsInvalidUsersInPlaceAndChainsTheRest() {
+        BatchMessageService batchService = batchService(classicPipeline(), null);
+
+        BatchMessageResponse response = batchService.processServiceABatchAsync(
+                Arrays.asList(null, "ann", "x".repeat(51), "bob", null)).join();
+
+        List<BatchItemResult<MessageResponse>> results = response.getResults();
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results).extracting(result -> result.getResult() != null ? result.getResult().getMessage() : null)
+                .containsExactly(null, "Hello ann! Welcome. Done.", null, "Hello bob! Welcome. Done.", null);
+        assertThat(results).extracting(result -> result.getError() != null ? result.getError().getMessage() : null)
+                .containsExactly("user is required", null, "user must not exceed 50 characters", null,
+                        "user is required");
+        assertThat(results.get(2).getError().getFailedService()).isEqualTo("service-a");
+        assertThat(results.get(3).getResult().getChain()).extracting(ChainLink::getService)
+                .containsExactly("service-a", "service-b", "service-c");
+        assertThat(response.getTotal()).isEqualTo(5);
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(3);
+    }
+
+    @Test
+    void serviceBReportsInvalidItemsInPlaceAndForwardsTheRest() {
+        BatchMessageService batchService = batchService(classicPipeline(), null);
+        ServiceBRequest blank = ServiceBRequest.builder().currentMessage(" ").build();
+
+        BatchResponse<ServiceBResponse> response = batchService.processServiceBBatchAsync(new BatchRequest<>(
+                Arrays.asList(blank, serviceBRequest("Hello ann!"), null, serviceBRequest("Hello bob!")))).join();
+
+        assertThat(response.getResults()).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(response.getResults().get(0).getError().getFailedService()).isEqualTo("service-b");
+        assertThat(response.getResults().get(0).getError().getMessage()).isEqualTo("current_message is required");
+        assertThat(response.getResults().get(2).getError().getMessage()).isEqualTo("item is required");
+        assertThat(response.getResults().get(1).getResult().getMessage()).isEqualTo("Hello ann! Welcome. Done.");
+        assertThat(response.getResults().get(3).getResult().getMessage()).isEqualTo("Hello bob! Welcome. Done.");
+    }
+
+    @Test
+    void mapsServiceBResultsBackToTheUsersThatWereForwarded() throws Exception {
+        RestClient.Builder restClient = RestClient.builder().baseUrl("http://service-b");
+        MockRestServiceServer serviceB = MockRestServiceServer.bindTo(restClient).build();
+        ErrorResponse refused = ErrorResponse.builder().error("invalid_input").failedService("service-c").build();
+        serviceB.expect(requestTo("http://service-b/internal/service-b/append/batch"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].currentMessage").value("Hello bob!"))
+                .andRespond(withSuccess(MAPPER.writeValueAsString(BatchResponse.<ServiceBResponse>builder()
+                        .results(List.of(BatchItemResult.failure(0, refused),
+                                BatchItemResult.success(1, serviceBResponse("Hello cy! Welcome. Done."))))
+                        .build()), MediaType.APPLICATION_JSON));
+        BatchMessageService batchService = batchService(classicPipeline(), serviceBClient(restClient));
+
+        BatchMessageResponse response = batchService.processServiceABatchAsync(
+                Arrays.asList(null, "bob", null, "cy")).join();
+
+        serviceB.verify();
+        List<BatchItemResult<MessageResponse>> results = response.getResults();
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(results.get(0).getError().getFailedService()).isEqualTo("service-a");
+        assertThat(results.get(1).getError()).isEqualTo(refused);
+        assertThat(results.get(2).getError().getFailedService()).isEqualTo("service-a");
+        assertThat(results.get(3).getResult().getMessage()).isEqualTo("Hello cy! Welcome. Done.");
+        assertThat(results.get(3).getResult().getChain()).extracting(ChainLink::getContribution)
+                .containsExactly("Hello cy!", "Welcome.", "Done.");
+        assertThat(response.getFailed()).isEqualTo(3);
+    }
+
+    @Test
+    void failsTheBatchWhenServiceBReturnsTheWrongNumberOfResults() throws Exception {
+        RestClient.Builder restClient = RestClient.builder().baseUrl("http://service-b");
+        MockRestServiceServer serviceB = MockRestServiceServer.bindTo(restClient).build();
+        serviceB.expect(requestTo("http://service-b/internal/service-b/append/batch"))
+                .andRespond(withSuccess(MAPPER.writeValueAsString(BatchResponse.<ServiceBResponse>builder()
+                        .results(List.of(BatchItemResult.success(0, serviceBResponse("Hello ann! Welcome. Done."))))
+                        .build()), MediaType.APPLICATION_JSON));
+        BatchMessageService batchService = batchService(classicPipeline(), serviceBClient(restClient));
+
+        assertThatThrownBy(() -> batchService.processServiceABatchAsync(List.of("ann", "bob")).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(ServiceCommunicationException.class)
+                .hasMessageContaining("Service B returned 1 batch results for 2 items");
+    }
+
+    @Test
+    void sendsNothingDownstreamWhenEveryUserIsInvalid() {
+        RestClient.Builder restClient = RestClient.builder().baseUrl("http://service-b");
+        MockRestServiceServer serviceB = MockRestServiceServer.bindTo(restClient).build();
+        BatchMessageService batchService = batchService(classicPipeline(), serviceBClient(restClient));
+
+        BatchMessageResponse response = batchService.processServiceABatchAsync(
+                Arrays.asList(null, "x".repeat(51))).join();
+
+        serviceB.verify();
+        assertThat(response.getResults()).extracting(BatchItemResult::getIndex).containsExactly(0, 1);
+        assertThat(response.getResults()).allSatisfy(result -> assertThat(result.getError().getError())
+                .isEqualTo("invalid_input"));
+        assertThat(response.getFailed()).isEqualTo(2);
+    }
+
+    @Test
+    void runsTheConfiguredPipelineForEachUser() {
+        PipelineConfig pipelineConfig = new PipelineConfig();
+        pipelineConfig.getStages().add(stage("greeting", "Hi {user}!", null));
+        pipelineConfig.getStages().add(stage("welcome", "{previous_message} Glad you are here.", null));
+        ChainPipeline pipeline = pipeline(pipelineConfig);
+        PipelineService pipelineService = new PipelineService(pipeline, null, appConfig(), chainMetrics());
+        BatchMessageService batchService = batchService(pipeline, pipelineService, null);
+
+        BatchMessageResponse response = batchService.processServiceABatchAsync(
+                Arrays.asList("ann", null, "bob")).join();
+
+        assertThat(response.getResults()).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(response.getResults().get(0).getResult().getMessage())
+                .isEqualTo("Hi ann! Glad you are here.")
+                .isEqualTo(pipelineService.executeAsync("ann").join().getMessage());
+        assertThat(response.getResults().get(1).getError()).extracting(ErrorResponse::getError)
+                .isEqualTo("invalid_input");
+        assertThat(response.getResults().get(2).getResult().getMessage()).isEqualTo("Hi bob! Glad you are here.");
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(1);
+    }
+
+    private static MessageTemplateConfig templates() {
+        MessageTemplateConfig templates = new MessageTemplateConfig();
+        templates.getServiceA().setTemplate("Hello {user}!");
+        templates.getServiceB().setTemplate("{previous_message} Welcome.");
+        templates.getServiceC().setTemplate("{previous_message} Done.");
+        return templates;
+    }
+
+    private static ServiceBRequest serviceBRequest(String message) {
+        return ServiceBRequest.builder().currentMessage(message).build();
+    }
+
+    private static ServiceBResponse serviceBResponse(String message) {
+        return ServiceBResponse.builder()
+                .applicationName("service-b-instance")
+                .message(message)
+                .chain(List.of(
+                        ChainLink.builder().service("service-b").contribution("Welcome.").build(),
+                        ChainLink.builder().service("service-c").contribution("Done.").build()))
+                .build();
+    }
+
+    /**
+     * Service B client on a mocked server, running calls on the calling thread
+     */
+    private static ServiceBClient serviceBClient(RestClient.Builder restClient) {
+        RequestHedger hedger = new RequestHedger(false, 0.5, Duration.ZERO, 0.0, task -> task);
+        ServiceBClient client = new ServiceBClient(restClient.build(), Runnable::run,
+                new DownstreamGuard("Service B", null, hedger));
+        ReflectionTestUtils.setField(client, "wireFormat", WireFormat.JSON);
+        return client;
+    }
+
+    private ChainPipeline classicPipeline() {
+        return pipeline(new PipelineConfig());
+    }
+
+    private static PipelineConfig.StageDefinition stage(String name, String template, String placeholder) {
+        PipelineConfig.StageDefinition stage = new PipelineConfig.StageDefinition();
+        stage.setName(name);
+        stage.setTemplate(template);
+        if (placeholder != null) {
+            stage.setPlaceholder(placeholder);
+        }
+        return stage;
+    }
+
+    private ChainPipeline pipeline(PipelineConfig pipelineConfig) {
+        ChainPipeline pipeline = new ChainPipeline(pipelineConfig, templates);
+        ReflectionTestUtils.invokeMethod(pipeline, "init");
+        return pipeline;
+    }
+
+    private static AppConfig appConfig() {
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "applicationName", "test");
+        return appConfig;
+    }
+
+    private static ChainMetrics chainMetrics() {
+        ChainTraceRecorder traceRecorder = new ChainTraceRecorder();
+        ReflectionTestUtils.setField(traceRecorder, "capacity", 16);
+        ReflectionTestUtils.invokeMethod(traceRecorder, "init");
+        ChainMetrics chainMetrics = new ChainMetrics(new SimpleMeterRegistry(), traceRecorder);
+        ReflectionTestUtils.invokeMethod(chainMetrics, "init");
+        return chainMetrics;
+    }
+
+    /**
+     * Batch service calling Service C in-process, and Service B too unless a client is given
+     */
+    private BatchMessageService batchService(ChainPipeline pipeline, ServiceBClient serviceBClient) {
+        return batchService(pipeline, null, serviceBClient);
+    }
+
+    private BatchMessageService batchService(ChainPipeline pipeline, PipelineService pipelineService,
+                                             ServiceBClient serviceBClient) {
+        AppConfig appConfig = appConfig();
+        MessageService messageService = new MessageService(templates, null, null, appConfig, null, null,
+                chainMetrics(), null, null, null, pipeline, pipelineService, null, null);
+
+        BatchMessageService batchService = new BatchMessageService(messageService, serviceBClient, null, appConfig,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new DownstreamLocality(new SimpleMeterRegistry()), pipeline, pipelineService);
+        ReflectionTestUtils.setField(batchService, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(batchService, "useRestClient", serviceBClient != null);
+        ReflectionTestUtils.setField(batchService, "useAsync", true);
+        return batchService;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.microservicedemo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.example.microservicedemo.model.ChainFragment;
+import org.example.microservicedemo.template.CompiledTemplate;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChainTemplateCacheTest {
+
+    private final ChainTemplateCache cache = new ChainTemplateCache();
+
+    @Test
+    void followsTemplateChangesWhileOlderFragmentsStillResolve() {
+        CompiledTemplate welcome = CompiledTemplate.compile("{previous_message} Welcome.");
+        CompiledTemplate greetings = CompiledTemplate.compile("{previous_message} Greetings.");
+
+        assertThat(cache.deltaRequest().getKnownTemplates()).isEmpty();
+        assertThat(cache.resolve(fragment(welcome, true))).isEqualTo(welcome);
+        assertThat(cache.resolve(fragment(welcome, false))).isEqualTo(welcome);
+        assertThat(cache.deltaRequest().getKnownTemplates()).containsEntry("service-b", welcome.getFingerprint());
+
+        // Service B changed its template: the new text arrives once and is advertised from then on
+        assertThat(cache.resolve(fragment(greetings, true))).isEqualTo(greetings);
+        assertThat(cache.resolve(fragment(greetings, false))).isEqualTo(greetings);
+        assertThat(cache.deltaRequest().getKnownTemplates()).containsEntry("service-b", greetings.getFingerprint());
+        assertThat(cache.resolve(fragment(welcome, false))).isEqualTo(welcome);
+    }
+
+    @Test
+    void unknownFingerprintMakesTheNextRequestFetchTheTemplateAgain() {
+        CompiledTemplate welcome = CompiledTemplate.compile("{previous_message} Welcome.");
+        cache.resolve(fragment(welcome, true));
+
+        // A fingerprint that was never advertised leaves the advertised one alone
+        CompiledTemplate unseen = CompiledTemplate.compile("{previous_message} Unseen.");
+        assertThatThrownBy(() -> cache.resolve(fragment(unseen, false)))
+                .isInstanceOf(ServiceCommunicationException.class)
+                .hasMessageContaining(unseen.getFingerprint());
+        assertThat(cache.deltaRequest().getKnownTemplates()).containsEntry("service-b", welcome.getFingerprint());
+
+        // The advertised template was evicted: stop advertising it so Service B sends the text again
+        ((Cache<?, ?>) ReflectionTestUtils.getField(cache, "templates")).invalidateAll();
+        assertThatThrownBy(() -> cache.resolve(fragment(welcome, false)))
+                .isInstanceOf(ServiceCommunicationException.class);
+        assertThat(cache.deltaRequest().getKnownTemplates()).doesNotContainKey("service-b");
+
+        assertThat(cache.resolve(fragment(welcome, true))).isEqualTo(welcome);
+        assertThat(cache.deltaRequest().getKnownTemplates()).containsEntry("service-b", welcome.getFingerprint());
+    }
+
+    private static ChainFragment fragment(CompiledTemplate template, boolean withText) {
+        return ChainFragment.builder()
+                .service("service-b")
+                .applicationName("test")
+                .templateFingerprint(template.getFingerprint())
+                .template(withText ? template.getSource() : null)
+                .timestamp(Instant.now())
+                .build();
+    }
+}
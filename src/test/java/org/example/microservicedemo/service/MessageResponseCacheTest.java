@@ -0,0 +1,126 @@
+package org.example.microservicedemo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.microservicedemo.config.AppConfig;
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.config.PipelineConfig;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.store.TemplateStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageResponseCacheTest {
+
+    private final MessageTemplateConfig templates = templates();
+    private final ChainPipeline pipeline = pipeline(templates);
+
+    @Test
+    void servesResponsesForTheCurrentTemplateVersions() {
+        MessageResponseCache cache = cache(pipeline, true);
+        MessageResponse response = response("Hello ann!");
+
+        assertThat(cache.get(cache.keyFor("ann"))).isNull();
+        cache.put(cache.keyFor("ann"), response);
+        assertThat(cache.get(cache.keyFor("ann"))).isSameAs(response);
+        assertThat(cache.get(cache.keyFor("bob"))).isNull();
+
+        // Any template change moves the key on, so the old response is never served
+        templates.getServiceC().updateTemplate("{previous_message} All set!");
+        assertThat(cache.get(cache.keyFor("ann"))).isNull();
+    }
+
+    @Test
+    void declaredStageUpdatesMoveTheKeyOn() {
+        MessageResponseCache cache = cache(pipeline, true);
+        MessageResponseCache.Key before = cache.keyFor("ann");
+        cache.put(before, response("Hello ann! Welcome. Done. Cheers."));
+
+        // A stage of the pipeline only, not one of the classic templates
+        pipeline.getStage("signature").getTemplate().updateTemplate("{previous_message} Bye.");
+
+        assertThat(cache.keyFor("ann")).isNotEqualTo(before);
+        assertThat(cache.get(cache.keyFor("ann"))).isNull();
+    }
+
+    @Test
+    void templateUpdatesClearTheCache() {
+        MessageResponseCache cache = cache(pipeline, true);
+        MessageService messageService = messageService(templates, pipeline, cache);
+
+        MessageResponseCache.Key before = cache.keyFor("ann");
+        cache.put(before, response("Hello ann!"));
+        messageService.updateTemplate("service-a", "Hi {user}!");
+
+        assertThat(cache.keyFor("ann")).isNotEqualTo(before);
+        assertThat(cache.get(before)).isNull();
+    }
+
+    @Test
+    void storesNothingWhenDisabled() {
+        MessageResponseCache cache = cache(pipeline, false);
+
+        assertThat(cache.isEnabled()).isFalse();
+        cache.put(cache.keyFor("ann"), response("Hello ann!"));
+        assertThat(cache.get(cache.keyFor("ann"))).isNull();
+        cache.invalidateAll();
+    }
+
+    private static MessageResponse response(String message) {
+        return MessageResponse.builder()
+                .message(message)
+                .complete(true)
+                .totalLength(message.length())
+                .build();
+    }
+
+    private static MessageTemplateConfig templates() {
+        MessageTemplateConfig templates = new MessageTemplateConfig();
+        templates.getServiceA().setTemplate("Hello {user}!");
+        templates.getServiceB().setTemplate("{previous_message} Welcome.");
+        templates.getServiceC().setTemplate("{previous_message} Done.");
+        return templates;
+    }
+
+    /**
+     * Classic chain followed by a declared signature stage
+     */
+    private static ChainPipeline pipeline(MessageTemplateConfig templates) {
+        PipelineConfig pipelineConfig = new PipelineConfig();
+        for (String name : new String[] {"service-a", "service-b", "service-c", "signature"}) {
+            PipelineConfig.StageDefinition stage = new PipelineConfig.StageDefinition();
+            stage.setName(name);
+            pipelineConfig.getStages().add(stage);
+        }
+        pipelineConfig.getStages().get(3).setTemplate("{previous_message} Cheers.");
+        ChainPipeline pipeline = new ChainPipeline(pipelineConfig, templates);
+        ReflectionTestUtils.invokeMethod(pipeline, "init");
+        return pipeline;
+    }
+
+    private static MessageResponseCache cache(ChainPipeline pipeline, boolean enabled) {
+        MessageResponseCache cache = new MessageResponseCache(pipeline, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", enabled);
+        ReflectionTestUtils.setField(cache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        return cache;
+    }
+
+    /**
+     * Message service with only what template updates need; the chain itself is not run
+     */
+    private static MessageService messageService(MessageTemplateConfig templates, ChainPipeline pipeline,
+                                                  MessageResponseCache cache) {
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "applicationName", "test");
+        TemplateStore store = new TemplateStore(pipeline, cache, new SimpleMeterRegistry());
+
+        return new MessageService(templates, null, null, appConfig, cache, null, null, null, null, null,
+                pipeline, null, null, store);
+    }
+}
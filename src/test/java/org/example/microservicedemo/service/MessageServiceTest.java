@@ -0,0 +1,196 @@
+package org.example.microservicedemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.microservicedemo.client.DownstreamGuard;
+import org.example.microservicedemo.client.DownstreamLocality;
+import org.example.microservicedemo.client.ServiceBClient;
+import org.example.microservicedemo.concurrent.RequestHedger;
+import org.example.microservicedemo.config.AppConfig;
+import org.example.microservicedemo.config.ChainProtocol;
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.config.PipelineConfig;
+import org.example.microservicedemo.config.WireFormat;
+import org.example.microservicedemo.exception.UnknownTemplateException;
+import org.example.microservicedemo.metrics.ChainMetrics;
+import org.example.microservicedemo.model.ChainDeltaRequest;
+import org.example.microservicedemo.model.ChainDeltaResponse;
+import org.example.microservicedemo.model.ChainFragment;
+import org.example.microservicedemo.model.ChainLink;
+import org.example.microservicedemo.model.MessageResponse;
+import org.example.microservicedemo.model.ServiceBRequest;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.trace.ChainTraceRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class MessageServiceTest {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    private final MessageTemplateConfig templates = templates();
+    private final ChainTemplateCache chainTemplateCache = new ChainTemplateCache();
+    private final MessageService messageService = messageService(templates, chainTemplateCache);
+
+    @Test
+    void deltaProtocolAssemblesTheSameResponseAsTheFullProtocol() {
+        // First request: Service B and C send their templates
+        assertThat(deltaAgainstFull("ann").getFragments()).extracting(ChainFragment::getTemplate).doesNotContainNull();
+
+        // Templates already held: fingerprints only
+        assertThat(deltaAgainstFull("bob").getFragments()).extracting(ChainFragment::getTemplate).containsOnlyNulls();
+
+        // A changed template is sent again and used right away
+        templates.getServiceC().updateTemplate("{previous_message} All set.");
+        assertThat(deltaAgainstFull("ann").getFragments()).extracting(ChainFragment::getTemplate)
+                .containsExactly(null, "{previous_message} All set.");
+    }
+
+    @Test
+    void deltaProtocolAsksForEveryTemplateWhenOneIsNoLongerHeld() throws Exception {
+        for (boolean async : new boolean[]{false, true}) {
+            RestClient.Builder restClient = RestClient.builder().baseUrl("http://service-b");
+            MockRestServiceServer serviceB = MockRestServiceServer.bindTo(restClient).build();
+            ChainTemplateCache evicted = evictedTemplateCache();
+            serviceB.expect(requestTo("http://service-b/internal/service-b/delta"))
+                    .andExpect(jsonPath("$.knownTemplates['service-b']").exists())
+                    .andRespond(deltaResponse(evicted.deltaRequest()));
+            serviceB.expect(requestTo("http://service-b/internal/service-b/delta"))
+                    .andExpect(jsonPath("$.knownTemplates").isEmpty())
+                    .andRespond(deltaResponse(evicted.fullDeltaRequest()));
+            MessageService serviceA = remoteServiceA(restClient, evicted);
+
+            MessageResponse response = async
+                    ? serviceA.processServiceAAsync("ann").join()
+                    : serviceA.processServiceA("ann");
+
+            serviceB.verify();
+            assertThat(response.getMessage()).isEqualTo("Hello ann! Welcome. Done.");
+            assertThat(evicted.deltaRequest().getKnownTemplates()).containsOnlyKeys("service-b", "service-c");
+        }
+    }
+
+    @Test
+    void deltaProtocolRetriesOnlyOnce() throws Exception {
+        RestClient.Builder restClient = RestClient.builder().baseUrl("http://service-b");
+        MockRestServiceServer serviceB = MockRestServiceServer.bindTo(restClient).build();
+        ChainTemplateCache evicted = evictedTemplateCache();
+        for (int call = 0; call < 2; call++) {
+            // A Service B that never sends its template text
+            serviceB.expect(requestTo("http://service-b/internal/service-b/delta"))
+                    .andRespond(deltaResponse(evictedTemplateCache().deltaRequest()));
+        }
+        MessageService serviceA = remoteServiceA(restClient, evicted);
+
+        assertThatThrownBy(() -> serviceA.processServiceAAsync("ann").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UnknownTemplateException.class);
+        serviceB.verify();
+    }
+
+    /**
+     * Template cache advertising Service B and C templates it no longer holds
+     */
+    private ChainTemplateCache evictedTemplateCache() {
+        ChainTemplateCache cache = new ChainTemplateCache();
+        messageService.processServiceBDelta(cache.deltaRequest()).getFragments().forEach(cache::resolve);
+        ((Cache<?, ?>) ReflectionTestUtils.getField(cache, "templates")).invalidateAll();
+        return cache;
+    }
+
+    private ResponseCreator deltaResponse(ChainDeltaRequest request) throws Exception {
+        return withSuccess(MAPPER.writeValueAsString(messageService.processServiceBDelta(request)),
+                MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Service A calling a mocked Service B with the delta protocol
+     */
+    private MessageService remoteServiceA(RestClient.Builder restClient, ChainTemplateCache chainTemplateCache) {
+        RequestHedger hedger = new RequestHedger(false, 0.5, Duration.ZERO, 0.0, task -> task);
+        ServiceBClient serviceBClient = new ServiceBClient(restClient.build(), Runnable::run,
+                new DownstreamGuard("Service B", null, hedger));
+        ReflectionTestUtils.setField(serviceBClient, "wireFormat", WireFormat.JSON);
+
+        ChainPipeline pipeline = new ChainPipeline(new PipelineConfig(), templates);
+        ReflectionTestUtils.invokeMethod(pipeline, "init");
+        MessageService serviceA = new MessageService(templates, serviceBClient, null, appConfig(),
+                new MessageResponseCache(pipeline, new SimpleMeterRegistry()), null, chainMetrics(), null, null,
+                chainTemplateCache, pipeline, null, new DownstreamLocality(new SimpleMeterRegistry()), null);
+        ReflectionTestUtils.setField(serviceA, "useRestClient", true);
+        ReflectionTestUtils.setField(serviceA, "useAsync", true);
+        ReflectionTestUtils.setField(serviceA, "chainProtocol", ChainProtocol.DELTA);
+        return serviceA;
+    }
+
+    /**
+     * Run the chain in-process with both protocols and check the responses match
+     *
+     * @return Delta protocol response of Service B
+     */
+    private ChainDeltaResponse deltaAgainstFull(String user) {
+        long startTime = System.currentTimeMillis();
+        ChainLink serviceALink = messageService.buildServiceALink(user);
+
+        MessageResponse full = messageService.completeServiceA(startTime, serviceALink,
+                messageService.processServiceB(ServiceBRequest.builder()
+                        .currentMessage(serviceALink.getContribution())
+                        .build()));
+        ChainDeltaResponse delta = messageService.processServiceBDelta(chainTemplateCache.deltaRequest());
+        MessageResponse assembled = messageService.assembleServiceA(startTime, serviceALink, delta);
+
+        assertThat(assembled.getMessage()).isEqualTo(full.getMessage());
+        assertThat(assembled.getTotalLength()).isEqualTo(full.getTotalLength());
+        assertThat(assembled.getComplete()).isTrue();
+        assertThat(assembled.getChain())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("timestamp")
+                .containsExactlyElementsOf(full.getChain());
+        return delta;
+    }
+
+    private static MessageTemplateConfig templates() {
+        MessageTemplateConfig templates = new MessageTemplateConfig();
+        templates.getServiceA().setTemplate("Hello {user}!");
+        templates.getServiceB().setTemplate("{previous_message} Welcome.");
+        templates.getServiceC().setTemplate("{previous_message} Done.");
+        return templates;
+    }
+
+    /**
+     * Message service calling Service B and C in-process
+     */
+    private static MessageService messageService(MessageTemplateConfig templates, ChainTemplateCache chainTemplateCache) {
+        return new MessageService(templates, null, null, appConfig(), null, null, chainMetrics(), null, null,
+                chainTemplateCache, null, null, null, null);
+    }
+
+    private static AppConfig appConfig() {
+        AppConfig appConfig = new AppConfig();
+        ReflectionTestUtils.setField(appConfig, "applicationName", "test");
+        return appConfig;
+    }
+
+    private static ChainMetrics chainMetrics() {
+        ChainTraceRecorder traceRecorder = new ChainTraceRecorder();
+        ReflectionTestUtils.setField(traceRecorder, "capacity", 16);
+        ReflectionTestUtils.invokeMethod(traceRecorder, "init");
+        ChainMetrics chainMetrics = new ChainMetrics(new SimpleMeterRegistry(), traceRecorder);
+        ReflectionTestUtils.invokeMethod(chainMetrics, "init");
+        return chainMetrics;
+    }
+}
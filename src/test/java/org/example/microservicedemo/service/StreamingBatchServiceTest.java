@@ -0,0 +1,203 @@
+package org.example.microservicedemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.example.microservicedemo.exception.ServiceCommunicationException;
+import org.example.microservicedemo.model.BatchItemResult;
+import org.example.microservicedemo.model.BatchMessageResponse;
+import org.example.microservicedemo.model.ErrorResponse;
+import org.example.microservicedemo.model.MessageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingBatchServiceTest {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void endsCleanlyWhenTheBatchIsAnExactMultipleOfTheChunkSize() throws IOException {
+        ChunkRecorder chunks = new ChunkRecorder(Integer.MAX_VALUE);
+
+        List<JsonNode> lines = stream(chunks, 2, 4, "[\"a\", \"b\", \"c\", \"d\"]");
+
+        // No trailing empty chunk is sent once the array ends on a chunk boundary
+        assertThat(chunks.received).containsExactly(List.of("a", "b"), List.of("c", "d"));
+        assertThat(lines).extracting(line -> line.get("index").asInt()).containsExactly(0, 1, 2, 3);
+        assertThat(lines).extracting(line -> line.at("/result/message").asText())
+                .containsExactly("Hello a!", "Hello b!", "Hello c!", "Hello d!");
+    }
+
+    @Test
+    void shortLastChunkEndsTheInput() throws IOException {
+        ChunkRecorder chunks = new ChunkRecorder(Integer.MAX_VALUE);
+
+        List<JsonNode> lines = stream(chunks, 2, 4, "[\"a\", \"b\", \"c\", \"d\", \"e\"]");
+
+        assertThat(chunks.received).containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e"));
+        assertThat(lines).extracting(line -> line.get("index").asInt()).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void reportsAFailedChunkOnEachOfItsItems() throws IOException {
+        ChunkRecorder chunks = new ChunkRecorder(Integer.MAX_VALUE);
+        chunks.failing = 1;
+
+        List<JsonNode> lines = stream(chunks, 2, 1, "[\"a\", \"b\", \"c\", \"d\", \"e\"]");
+
+        assertThat(lines).extracting(line -> line.get("index").asInt()).containsExactly(0, 1, 2, 3, 4);
+        assertThat(lines).extracting(line -> line.at("/error/error").asText(null))
+                .containsExactly(null, null, "service_communication_error", "service_communication_error", null);
+        assertThat(lines.get(2).at("/error/message").asText()).isEqualTo("Failed to complete message chain");
+        assertThat(lines.get(3).at("/result/message").isMissingNode()).isTrue();
+        assertThat(lines.get(4).at("/result/message").asText()).isEqualTo("Hello e!");
+    }
+
+    @Test
+    void readsUsersFromABareArrayOrAUsersField() throws IOException {
+        List<JsonNode> bare = stream(new ChunkRecorder(Integer.MAX_VALUE), 2, 4, "[\"ann\", \"bob\", \"cy\"]");
+        List<JsonNode> wrapped = stream(new ChunkRecorder(Integer.MAX_VALUE), 2, 4,
+                "{\"trace\": {\"users\": [\"eve\"]}, \"users\": [\"ann\", \"bob\", \"cy\"], \"after\": 1}");
+
+        assertThat(wrapped).isEqualTo(bare);
+        assertThat(bare).extracting(line -> line.at("/result/message").asText())
+                .containsExactly("Hello ann!", "Hello bob!", "Hello cy!");
+    }
+
+    @Test
+    void rejectsABodyWithoutAUsersArray() {
+        StreamingBatchService service = streamingService(new ChunkRecorder(Integer.MAX_VALUE), 2, 4);
+
+        for (String body : List.of("{\"users\": \"ann\"}", "{\"names\": [\"ann\"]}", "\"ann\"")) {
+            assertThatThrownBy(() -> service.openUsers(input(body)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void passesNonStringItemsOnAsScalarsOrInvalidUsers() throws IOException {
+        ChunkRecorder chunks = new ChunkRecorder(Integer.MAX_VALUE);
+
+        List<JsonNode> lines = stream(chunks, 10, 4, "[7, true, {\"user\": \"ann\"}, [\"bob\"], null, \"cy\"]");
+
+        assertThat(chunks.received).containsExactly(Arrays.asList("7", "true", null, null, null, "cy"));
+        assertThat(lines).extracting(line -> line.get("index").asInt()).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(lines).extracting(line -> line.at("/error/error").asText(null))
+                .containsExactly(null, null, "invalid_input", "invalid_input", "invalid_input", null);
+    }
+
+    @Test
+    void mapsChunksCompletingOutOfOrderBackToTheirOffsets() throws IOException {
+        // The first two chunks are held back until the third is sent, then complete second first
+        ChunkRecorder chunks = new ChunkRecorder(3);
+
+        List<JsonNode> lines = stream(chunks, 2, 3, "[\"a\", \"b\", \"c\", \"d\", \"e\"]");
+
+        assertThat(lines).extracting(line -> line.get("index").asInt()).containsExactly(2, 3, 0, 1, 4);
+        assertThat(lines).extracting(line -> line.at("/result/message").asText())
+                .containsExactly("Hello c!", "Hello d!", "Hello a!", "Hello b!", "Hello e!");
+    }
+
+    private static List<JsonNode> stream(ChunkRecorder chunks, int chunkSize, int maxInFlight, String body)
+            throws IOException {
+        StreamingBatchService service = streamingService(chunks, chunkSize, maxInFlight);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamServiceABatch(service.openUsers(input(body)), out);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(MAPPER.readTree(line));
+        }
+        return lines;
+    }
+
+    private static StreamingBatchService streamingService(ChunkRecorder chunks, int chunkSize, int maxInFlight) {
+        StreamingBatchService service = new StreamingBatchService(chunks, MAPPER);
+        ReflectionTestUtils.setField(service, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(service, "maxInFlight", maxInFlight);
+        return service;
+    }
+
+    private static ByteArrayInputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Batch service greeting each user of a chunk, recording the chunks it receives
+     */
+    private static class ChunkRecorder extends BatchMessageService {
+
+        private final List<List<String>> received = new ArrayList<>();
+        private final List<CompletableFuture<BatchMessageResponse>> pending = new ArrayList<>();
+        private final int holdUntil;
+        private int failing = -1;
+
+        /**
+         * @param holdUntil Number of chunks to hold back before completing them all in reverse order
+         */
+        ChunkRecorder(int holdUntil) {
+            super(null, null, null, null, null, null, null, null);
+            this.holdUntil = holdUntil;
+        }
+
+        @Override
+        public CompletableFuture<BatchMessageResponse> processServiceABatchAsync(List<String> users) {
+            int chunk = received.size();
+            received.add(new ArrayList<>(users));
+            if (chunk == failing) {
+                return CompletableFuture.failedFuture(new ServiceCommunicationException("Service B is down"));
+            }
+
+            CompletableFuture<BatchMessageResponse> response = new CompletableFuture<>();
+            pending.add(response);
+            if (holdUntil == Integer.MAX_VALUE || pending.size() == holdUntil) {
+                List<BatchMessageResponse> responses = new ArrayList<>();
+                for (List<String> chunkUsers : received.subList(received.size() - pending.size(), received.size())) {
+                    responses.add(greet(chunkUsers));
+                }
+                for (int i = pending.size() - 1; i >= 0; i--) {
+                    pending.get(i).complete(responses.get(i));
+                }
+                pending.clear();
+            }
+            return response;
+        }
+
+        private static BatchMessageResponse greet(List<String> users) {
+            List<BatchItemResult<MessageResponse>> results = new ArrayList<>();
+            int failed = 0;
+            for (int index = 0; index < users.size(); index++) {
+                if (users.get(index) == null) {
+                    failed++;
+                    results.add(BatchItemResult.failure(index, ErrorResponse.builder()
+                            .error("invalid_input")
+                            .message("user is required")
+                            .failedService("service-a")
+                            .build()));
+                } else {
+                    results.add(BatchItemResult.success(index, MessageResponse.builder()
+                            .message("Hello " + users.get(index) + "!")
+                            .build()));
+                }
+            }
+            return BatchMessageResponse.builder()
+                    .results(results)
+                    .total(results.size())
+                    .succeeded(results.size() - failed)
+                    .failed(failed)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.microservicedemo.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.microservicedemo.config.MessageTemplateConfig;
+import org.example.microservicedemo.config.PipelineConfig;
+import org.example.microservicedemo.pipeline.ChainPipeline;
+import org.example.microservicedemo.service.MessageResponseCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemplateStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reappliesTheLatestTemplatesAfterRestart() throws Exception {
+        Path file = directory.resolve("templates.store");
+
+        MessageTemplateConfig first = templates();
+        TemplateStore store = store(file, first);
+        assertThat(store.append("service-a", "Hi {user}!")).isEqualTo(1);
+        assertThat(store.append("service-b", "{previous_message} Hello again.")).isEqualTo(2);
+        assertThat(store.append("service-a", "Hey {user}!")).isEqualTo(3);
+        assertThat(first.getServiceA().getCurrentTemplate()).isEqualTo("Hey {user}!");
+        store.close();
+
+        MessageTemplateConfig restarted = templates();
+        TemplateStore reopened = store(file, restarted);
+        assertThat(reopened.getVersion()).isEqualTo(3);
+        assertThat(restarted.getServiceA().getCurrentTemplate()).isEqualTo("Hey {user}!");
+        assertThat(restarted.getServiceB().getCurrentTemplate()).isEqualTo("{previous_message} Hello again.");
+        assertThat(restarted.getServiceC().getCurrentTemplate()).isEqualTo("{previous_message} Done.");
+        reopened.close();
+    }
+
+    @Test
+    void namesDifferingInCaseAreOneStageAcrossRestarts() throws Exception {
+        Path file = directory.resolve("templates.store");
+        // As written before names were stored canonically: the latest record must win
+        writeRecords(file, "service-a", "Hi {user}!", "Service-A", "Hey {user}!", "service-a", "Yo {user}!");
+
+        MessageTemplateConfig first = templates();
+        TemplateStore store = store(file, first);
+        assertThat(first.getServiceA().getCurrentTemplate()).isEqualTo("Yo {user}!");
+        assertThat(store.append("SERVICE-B", "{previous_message} Hi.")).isEqualTo(4);
+        assertThat(store.append("Service-A", "Howdy {user}!")).isEqualTo(5);
+        assertThat(store.append("service-b", "{previous_message} Hello.")).isEqualTo(6);
+        store.close();
+
+        MessageTemplateConfig restarted = templates();
+        TemplateStore reopened = store(file, restarted);
+        assertThat(restarted.getServiceA().getCurrentTemplate()).isEqualTo("Howdy {user}!");
+        assertThat(restarted.getServiceB().getCurrentTemplate()).isEqualTo("{previous_message} Hello.");
+        reopened.close();
+    }
+
+    @Test
+    void instancesSharingTheFileConverge() throws Exception {
+        Path file = directory.resolve("templates.store");
+        MessageTemplateConfig left = templates();
+        MessageTemplateConfig right = templates();
+        // A tiny initial size makes the appends grow and remap the file
+        TemplateStore leftStore = store(file, left);
+        TemplateStore rightStore = store(file, right);
+
+        String longTemplate = "{previous_message} " + "x".repeat(200);
+        leftStore.append("service-c", longTemplate);
+        assertThat(rightStore.append("service-a", "Yo {user}!")).isEqualTo(2);
+        assertThat(right.getServiceC().getCurrentTemplate()).isEqualTo(longTemplate);
+
+        // Picked up by the watcher without any call on the left instance
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!"Yo {user}!".equals(left.getServiceA().getCurrentTemplate()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(left.getServiceA().getCurrentTemplate()).isEqualTo("Yo {user}!");
+        assertThat(leftStore.getVersion()).isEqualTo(2);
+
+        leftStore.close();
+        rightStore.close();
+    }
+
+    /**
+     * Write a store file holding one record per name and template pair, versions from 1
+     */
+    private static void writeRecords(Path file, String... namesAndTemplates) throws Exception {
+        ByteBuffer log = ByteBuffer.allocate(4096).putInt(0x54504C53).putInt(1);
+        for (int i = 0; i < namesAndTemplates.length; i += 2) {
+            byte[] name = namesAndTemplates[i].getBytes(StandardCharsets.UTF_8);
+            byte[] template = namesAndTemplates[i + 1].getBytes(StandardCharsets.UTF_8);
+            ByteBuffer payload = ByteBuffer.allocate(8 + 4 + name.length + 4 + template.length)
+                    .putLong(i / 2 + 1)
+                    .putInt(name.length).put(name)
+                    .putInt(template.length).put(template);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            log.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array());
+        }
+        Files.write(file, log.array());
+    }
+
+    private static MessageTemplateConfig templates() {
+        MessageTemplateConfig templates = new MessageTemplateConfig();
+        templates.getServiceA().setTemplate("Hello {user}!");
+        templates.getServiceB().setTemplate("{previous_message} Welcome.");
+        templates.getServiceC().setTemplate("{previous_message} Done.");
+        return templates;
+    }
+
+    private static TemplateStore store(Path file, MessageTemplateConfig templates) throws Exception {
+        ChainPipeline pipeline = new ChainPipeline(new PipelineConfig(), templates);
+        ReflectionTestUtils.invokeMethod(pipeline, "init");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        TemplateStore store = new TemplateStore(pipeline, new MessageResponseCache(pipeline, registry), registry);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "file", file);
+        ReflectionTestUtils.setField(store, "initialSize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(store, "watchInterval", Duration.ofMillis(50));
+        store.open();
+        return store;
+    }
+}
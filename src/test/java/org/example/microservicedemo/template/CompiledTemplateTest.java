@@ -0,0 +1,62 @@
+package org.example.microservicedemo.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateTest {
+
+    @Test
+    void rendersSinglePlaceholderLikeStringReplace() {
+        String source = "{previous_message} Welcome to our system.";
+        CompiledTemplate template = CompiledTemplate.compile(source);
+
+        assertThat(template.render(CompiledTemplate.PREVIOUS_MESSAGE, "Hello john!"))
+                .isEqualTo(source.replace("{previous_message}", "Hello john!"));
+        assertThat(template.getContribution()).isEqualTo("Welcome to our system.");
+    }
+
+    @Test
+    void rendersRepeatedAndNamedPlaceholders() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi {user}, {user} from {team}!");
+
+        assertThat(template.getPlaceholders()).containsExactly("user", "team");
+        assertThat(template.render(Map.of("user", "ann", "team", "ops"))).isEqualTo("Hi ann, ann from ops!");
+    }
+
+    @Test
+    void rendersTemplatesOfEveryLengthLikeStringReplace() {
+        for (String source : new String[]{"", "{user}", "Hi {user}", "Hi {user}!", "{user}, {user}!",
+                "Hi {user}, {user}!", "{x} Hi {user}, {user}!"}) {
+            CompiledTemplate template = CompiledTemplate.compile(source);
+
+            assertThat(template.render(CompiledTemplate.USER, "ann")).isEqualTo(source.replace("{user}", "ann"));
+            assertThat(template.render(Map.of("user", "ann"))).isEqualTo(source.replace("{user}", "ann"));
+        }
+    }
+
+    @Test
+    void keepsUnboundAndMalformedPlaceholdersVerbatim() {
+        CompiledTemplate template = CompiledTemplate.compile("{ not one } {} {user} {other} {open");
+
+        assertThat(template.render(CompiledTemplate.USER, "bob")).isEqualTo("{ not one } {} bob {other} {open");
+        assertThat(template.getPlaceholders()).containsExactly("user", "other");
+    }
+
+    @Test
+    void contributionOnlyRemovesPreviousMessage() {
+        CompiledTemplate template = CompiledTemplate.compile("  {previous_message} Thanks {user}!  ");
+
+        assertThat(template.getContribution()).isEqualTo("Thanks {user}!");
+    }
+
+    @Test
+    void fingerprintDependsOnlyOnSource() {
+        String fingerprint = CompiledTemplate.compile("{previous_message} Welcome!").getFingerprint();
+
+        assertThat(CompiledTemplate.compile("{previous_message} Welcome!").getFingerprint()).isEqualTo(fingerprint);
+        assertThat(CompiledTemplate.compile("{previous_message} Welcome?").getFingerprint()).isNotEqualTo(fingerprint);
+    }
+}
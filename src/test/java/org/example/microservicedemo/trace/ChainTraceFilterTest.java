@@ -0,0 +1,49 @@
+package org.example.microservicedemo.trace;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChainTraceFilterTest {
+
+    @Test
+    void followsTheCallersTraceOnlyOnInternalRequests() throws Exception {
+        ChainTraceRecorder recorder = new ChainTraceRecorder();
+        ReflectionTestUtils.setField(recorder, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(recorder, "capacity", 16);
+        recorder.init();
+        ChainTraceFilter filter = new ChainTraceFilter(recorder);
+
+        // A client cannot force its request to be traced
+        assertThat(traceSeenBy(filter, recorder, "GET", "/api/message")).isNull();
+        assertThat(recorder.getRecorded()).isZero();
+
+        assertThat(traceSeenBy(filter, recorder, "POST", "/internal/service-b/append")).isEqualTo("abc123");
+        assertThat(recorder.snapshot("abc123", 10)).hasSize(1);
+    }
+
+    private static String traceSeenBy(ChainTraceFilter filter, ChainTraceRecorder recorder, String method, String path)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.addHeader(ChainTraceRecorder.TRACE_HEADER, "abc123");
+        AtomicReference<String> seen = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                        seen.set(recorder.currentTrace());
+                    }
+                }));
+        return seen.get();
+    }
+}
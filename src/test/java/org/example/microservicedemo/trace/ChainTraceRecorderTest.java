@@ -0,0 +1,101 @@
+package org.example.microservicedemo.trace;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChainTraceRecorderTest {
+
+    @Test
+    void keepsTheMostRecentEventsOfSampledThreads() {
+        ChainTraceRecorder recorder = recorder(0.0, 3);
+
+        recorder.recordHop("serialize", 1_000, -1);
+        assertThat(recorder.getRecorded()).isZero();
+
+        String previous = recorder.attach("t1");
+        for (int i = 0; i < 6; i++) {
+            recorder.recordHop("hop-" + i, 2_000, i);
+        }
+        recorder.restore(previous);
+        recorder.recordRequest("t2", "GET /api/message", 5_000, -1, 200);
+
+        // Capacity 3 rounds up to 4 slots
+        assertThat(recorder.getCapacity()).isEqualTo(4);
+        assertThat(recorder.snapshot(null, 10)).extracting(ChainTraceEvent::name)
+                .containsExactly("GET /api/message", "hop-5", "hop-4", "hop-3");
+        assertThat(recorder.snapshot("t1", 2)).extracting(ChainTraceEvent::name)
+                .containsExactly("hop-5", "hop-4");
+        assertThat(recorder.currentTrace()).isNull();
+    }
+
+    @Test
+    void followsUpstreamSamplingAndCarriesTracesToTasks() throws Exception {
+        ChainTraceRecorder recorder = recorder(0.0, 16);
+
+        assertThat(recorder.startTrace(null)).isNull();
+        assertThat(recorder.startTrace("abc")).isEqualTo("abc");
+        assertThat(recorder.startTrace("x".repeat(33))).isNull();
+        assertThat(recorder(1.0, 16).startTrace(null)).isNotNull();
+
+        String previous = recorder.attach("abc");
+        Runnable task = recorder.taskDecorator().decorate(() -> recorder.recordHop("b-call", 1_000, -1));
+        recorder.restore(previous);
+
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+        assertThat(recorder.snapshot("abc", 10)).singleElement()
+                .satisfies(event -> assertThat(event.thread()).isEqualTo(thread.getName()));
+    }
+
+    @Test
+    void concurrentWritersNeverReturnTornSnapshots() throws Exception {
+        ChainTraceRecorder recorder = recorder(0.0, 64);
+        int writers = 4;
+        int events = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            for (int w = 0; w < writers; w++) {
+                String traceId = "w" + w;
+                executor.execute(() -> {
+                    recorder.attach(traceId);
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (int i = 0; i < events; i++) {
+                        recorder.recordHop("serialize", i, i);
+                    }
+                    recorder.restore(null);
+                });
+            }
+            start.countDown();
+            for (int i = 0; i < 100; i++) {
+                List<ChainTraceEvent> snapshot = recorder.snapshot(null, 64);
+                for (int j = 1; j < snapshot.size(); j++) {
+                    assertThat(snapshot.get(j).sequence()).isLessThan(snapshot.get(j - 1).sequence());
+                }
+            }
+        }
+
+        assertThat(recorder.getRecorded()).isEqualTo((long) writers * events);
+        assertThat(recorder.snapshot(null, 100)).hasSize(64);
+    }
+
+    private static ChainTraceRecorder recorder(double sampleRate, int capacity) {
+        ChainTraceRecorder recorder = new ChainTraceRecorder();
+        ReflectionTestUtils.setField(recorder, "sampleRate", sampleRate);
+        ReflectionTestUtils.setField(recorder, "capacity", capacity);
+        recorder.init();
+        return recorder;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.microservicedemo.warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Warm-up of an instance whose Service C is not reachable yet, as is common while a deployment starts
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+        "services.warmup.requests=40",
+        "services.warmup.concurrency=2",
+        "services.circuit-breaker.open-duration=10m"
+})
+class WarmupRunnerBreakerTest {
+
+    private static final int PORT = freePort();
+
+    @DynamicPropertySource
+    static void downstreams(DynamicPropertyRegistry registry) {
+        registry.add("server.port", () -> PORT);
+        registry.add("services.service-b.url", () -> "http://localhost:" + PORT);
+        registry.add("services.service-c.url", () -> "http://localhost:" + freePort());
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void breakerOpenedByWarmupFailuresIsClosedForRealTraffic() {
+        assertThat(meterRegistry.get("chain.warmup.requests").tag("outcome", "failure").functionCounter().count())
+                .isPositive();
+        // The warm-up tripped Service C's breaker...
+        assertThat(meterRegistry.get("chain.circuit.rejected").tag("downstream", "service-c").functionCounter().count())
+                .isPositive();
+        // ...but real traffic starts with it closed
+        assertThat(meterRegistry.get("chain.circuit.state").tag("downstream", "service-c").gauge().value())
+                .isZero();
+        assertThat(meterRegistry.get("chain.circuit.failure.rate").tag("downstream", "service-c").gauge().value())
+                .isZero();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
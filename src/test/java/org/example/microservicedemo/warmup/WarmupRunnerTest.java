@@ -0,0 +1,110 @@
+package org.example.microservicedemo.warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.microservicedemo.concurrent.AdaptiveConcurrencyLimiter;
+import org.example.microservicedemo.service.MessageResponseCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Warm-up of a started instance whose Service B and C URLs point at itself, so the chain runs in-process
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+        "services.warmup.requests=12",
+        "services.warmup.concurrency=2",
+        "services.response-cache.enabled=true",
+        "services.concurrency-limit.initial-limit=20",
+        // Every call counts as slow, so the warm-up drives the limit down to its minimum
+        "services.concurrency-limit.rtt-threshold=1ns"
+})
+class WarmupRunnerTest {
+
+    private static final int PORT = freePort();
+
+    @DynamicPropertySource
+    static void downstreams(DynamicPropertyRegistry registry) {
+        registry.add("server.port", () -> PORT);
+        registry.add("services.service-b.url", () -> "http://localhost:" + PORT);
+        registry.add("services.service-c.url", () -> "http://localhost:" + PORT);
+    }
+
+    @Autowired
+    private List<ReadinessState> warmupReadiness;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private MessageResponseCache responseCache;
+
+    @Test
+    void warmsUpBeforeReadinessAndLeavesNoTraceForRealTraffic() {
+        assertThat(meterRegistry.get("chain.warmup.requests").tag("outcome", "success").functionCounter().count())
+                .isEqualTo(12);
+        assertThat(meterRegistry.get("chain.shortcircuit.calls").tag("downstream", "service-b").counter().count())
+                .isPositive();
+
+        // Every warm-up request was served while readiness still refused traffic
+        assertThat(warmupReadiness).hasSize(12).containsOnly(ReadinessState.REFUSING_TRAFFIC);
+        assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+
+        // Real traffic starts from the configured limit and an empty cache
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(20);
+        for (int request = 0; request < 12; request += 2) {
+            assertThat(responseCache.get(responseCache.keyFor("warmup-" + request))).isNull();
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class ReadinessRecorder {
+
+        /**
+         * Readiness seen by each warm-up request as it arrives
+         */
+        @Bean
+        List<ReadinessState> warmupReadiness() {
+            return new CopyOnWriteArrayList<>();
+        }
+
+        @Bean
+        Filter warmupReadinessFilter(List<ReadinessState> warmupReadiness, ApplicationAvailability availability) {
+            return (request, response, chain) -> {
+                if (((HttpServletRequest) request).getHeader(WarmupRunner.WARMUP_HEADER) != null) {
+                    warmupReadiness.add(availability.getReadinessState());
+                }
+                chain.doFilter(request, response);
+            };
+        }
+    }
+}